@@ -0,0 +1,64 @@
+
+/**
+ * A JDK Flight Recorder event for a guess that a search undid because it led
+ * to a dead end
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("sudoku.Backtrack")
+@Label("Backtrack")
+@Category({ "Sudoku", "Search" })
+@Description("A search undoing a guess that led to a dead end")
+@StackTrace(false)
+public class BacktrackEvent extends Event {
+   /**
+    * Checks if backtrack events are being recorded
+    * 
+    * @return true if the event is enabled in a running recording (otherwise,
+    *         false)
+    */
+   public static boolean isRecording() {
+      return new BacktrackEvent().isEnabled();
+   }
+
+   /**
+    * Records a backtrack, if the event is enabled
+    * 
+    * @param engine    The name of the engine
+    * @param boardSize The size of the board's rows and columns
+    * @param depth     The number of guesses above the undone guess
+    * @param nodes     The number of search nodes visited so far
+    */
+   public static void emit(String engine, int boardSize, int depth, long nodes) {
+      BacktrackEvent event = new BacktrackEvent();
+      if (event.shouldCommit()) {
+         event.engine = engine;
+         event.boardSize = boardSize;
+         event.depth = depth;
+         event.boardsVisited = nodes;
+         event.commit();
+      }
+   }
+
+   /** The name of the engine */
+   @Label("Engine")
+   private String engine;
+   /** The size of the board's rows and columns */
+   @Label("Board Size")
+   private int boardSize;
+   /** The number of guesses above the undone guess */
+   @Label("Depth")
+   private int depth;
+   /** The number of search nodes visited so far */
+   @Label("Boards Visited")
+   private long boardsVisited;
+}
@@ -0,0 +1,225 @@
+
+/**
+ * Solves Sudoku boards with in-place depth-first backtracking
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+public class BacktrackingSolver {
+   /**
+    * Creates a solver for a board
+    * 
+    * @param board The board to solve (modified in place)
+    */
+   public BacktrackingSolver(Board board) {
+      this.board = board;
+      this.units = board.createUnits();
+   }
+
+   /**
+    * Solves the board by filling its empty cells in place, undoing each move
+    * when it leads to a dead end
+    * 
+    * @return true if the board was solved (otherwise, false and the board is
+    *         left unchanged, including when the search was cancelled)
+    */
+   public boolean solve() {
+      this.metrics = new SolveMetrics();
+      this.isTracing = SolveEvent.isSearchRecorded();
+      if (!this.board.isConsistent()) {
+         return false;
+      }
+      this.depth = 0;
+      long searchStart = System.nanoTime();
+      boolean isSolved = this.solveNext();
+      this.metrics.addSearchNanos(System.nanoTime() - searchStart);
+      return isSolved;
+   }
+
+   /**
+    * Sets the control that can stop this solver's searches from another thread
+    * 
+    * @param control The solve control
+    */
+   public void setControl(SolveControl control) {
+      this.control = control;
+   }
+
+   /**
+    * Gets the counters of the last solve
+    * 
+    * @return The metrics of the last solve
+    */
+   public SolveMetrics getMetrics() {
+      return this.metrics;
+   }
+
+   /** The board being solved */
+   private Board board;
+   /** The cell indexes of every row, column, and box */
+   private int[][] units;
+   /** The control that can stop the search from another thread */
+   private SolveControl control;
+   /** The counters of the last solve */
+   private SolveMetrics metrics;
+   /** The number of guesses on the current search path */
+   private int depth;
+   /** Whether the current search records flight recorder events */
+   private boolean isTracing;
+
+   /**
+    * Records that a guess was undone
+    */
+   private void countBacktrack() {
+      this.metrics.countBacktrack();
+      if (this.isTracing) {
+         BacktrackEvent.emit(SolverRegistry.BACKTRACKING, this.board.size, this.depth,
+               this.metrics.getBoardsVisited());
+      }
+   }
+
+   /**
+    * Fills the remaining empty cells, branching on whichever has the fewest
+    * options: the empty cell with the fewest candidates, or the value with the
+    * fewest places left in a row, column, or box
+    * 
+    * @return true if all empty cells were filled (otherwise, false and the
+    *         board is left as it was before the call)
+    */
+   private boolean solveNext() {
+      this.metrics.countBoardVisited();
+      this.metrics.enterDepth(this.depth);
+      if (this.control != null) {
+         if (this.control.checkpoint(this.metrics.getBoardsVisited())) {
+            return false;
+         }
+         if (this.control.isBetterPartial(this.board.getFilledCount())) {
+            this.control.offerPartial(new Board(this.board));
+         }
+      }
+      int size = this.board.size;
+
+      // find the empty cell with the fewest candidates
+      int bestCell = -1;
+      int bestCount = Integer.MAX_VALUE;
+      for (int cell = 0; cell < size * size && bestCount > 1; cell++) {
+         if (this.board.getValue(cell / size, cell % size) == 0) {
+            int count = Integer.bitCount(this.board.getCandidates(cell / size, cell % size));
+            if (count < bestCount) {
+               bestCell = cell;
+               bestCount = count;
+            }
+         }
+      }
+      if (bestCell == -1) {
+         return true;
+      }
+      if (bestCount == 0) {
+         return false;
+      }
+
+      // look for a value with fewer places left in a row, column, or box
+      int bestUnit = -1;
+      int bestBit = 0;
+      for (int u = 0; u < this.units.length && bestCount > 1; u++) {
+         int[] unit = this.units[u];
+         int missing = (1 << size) - 1;
+         for (int cell : unit) {
+            int value = this.board.getValue(cell / size, cell % size);
+            if (value != 0) {
+               missing &= ~(1 << (value - 1));
+            }
+         }
+         while (missing != 0) {
+            int bit = missing & -missing;
+            missing ^= bit;
+            int count = 0;
+            for (int cell : unit) {
+               if (this.board.getValue(cell / size, cell % size) == 0
+                     && (this.board.getCandidates(cell / size, cell % size) & bit) != 0) {
+                  count++;
+               }
+            }
+            if (count == 0) {
+               return false;
+            }
+            if (count < bestCount) {
+               bestUnit = u;
+               bestBit = bit;
+               bestCount = count;
+            }
+         }
+      }
+      if (this.isTracing) {
+         BranchEvent.emit(SolverRegistry.BACKTRACKING, size, this.depth, bestUnit != -1 ? -1 : bestCell, bestCount,
+               this.metrics.getBoardsVisited());
+      }
+      this.metrics.openBranches(bestCount);
+      if (bestUnit != -1) {
+         return this.tryPlaces(this.units[bestUnit], bestBit);
+      }
+
+      return this.tryValues(bestCell, this.board.getCandidates(bestCell / size, bestCell % size));
+   }
+
+   /**
+    * Tries a value in each empty cell of a row, column, or box that can hold it,
+    * undoing the move when the rest of the board cannot be filled
+    * 
+    * @param unit The row-major cell indexes of the row, column, or box
+    * @param bit  The bit of the value to place (bit v - 1 for value v)
+    * @return true if the board was filled (otherwise, false and the board is
+    *         left as it was before the call)
+    */
+   private boolean tryPlaces(int[] unit, int bit) {
+      int size = this.board.size;
+      int value = Integer.numberOfTrailingZeros(bit) + 1;
+      for (int cell : unit) {
+         int row = cell / size;
+         int col = cell % size;
+         if (this.board.getValue(row, col) == 0 && (this.board.getCandidates(row, col) & bit) != 0) {
+            this.board.setValue(row, col, value);
+            this.metrics.closeBranch();
+            this.metrics.countGuess();
+            this.depth++;
+            if (this.solveNext()) {
+               return true;
+            }
+            this.depth--;
+            this.countBacktrack();
+            this.board.clearCell(row, col);
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Tries each of the specified values in a cell, undoing the move when the
+    * rest of the board cannot be filled
+    * 
+    * @param cell   The row-major index of the cell
+    * @param values The bitmask of values to try (bit v - 1 for value v)
+    * @return true if the board was filled (otherwise, false and the cell is left
+    *         empty)
+    */
+   private boolean tryValues(int cell, int values) {
+      int row = cell / this.board.size;
+      int col = cell % this.board.size;
+      while (values != 0) {
+         int bit = values & -values;
+         values ^= bit;
+         this.board.setValue(row, col, Integer.numberOfTrailingZeros(bit) + 1);
+         this.metrics.closeBranch();
+         this.metrics.countGuess();
+         this.depth++;
+         if (this.solveNext()) {
+            return true;
+         }
+         this.depth--;
+         this.countBacktrack();
+      }
+      this.board.clearCell(row, col);
+      return false;
+   }
+}
@@ -0,0 +1,479 @@
+
+/**
+ * Solves many puzzle files without a display, on a fixed pool of worker
+ * threads
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+public class BatchSolver {
+   /**
+    * Creates a batch solver
+    * 
+    * @param engineName  The name of the solving engine (or SolverRegistry.AUTO)
+    * @param threadCount The number of worker threads
+    * @param out         The stream that results are written to
+    */
+   public BatchSolver(String engineName, int threadCount, PrintStream out) {
+      this.engineName = engineName;
+      this.threadCount = threadCount;
+      this.out = out;
+   }
+
+   /**
+    * Bounds the solve of each puzzle, so one hard puzzle cannot hold up the
+    * batch (puzzles that reach a limit are reported as TIMEOUT)
+    * 
+    * @param timeLimitMillis The time limit of each solve in milliseconds (0 for
+    *                        no limit)
+    * @param nodeLimit       The number of search nodes each solve can visit (0
+    *                        for no limit)
+    */
+   public void setLimits(long timeLimitMillis, long nodeLimit) {
+      this.timeLimitMillis = timeLimitMillis;
+      this.nodeLimit = nodeLimit;
+   }
+
+   /**
+    * Answers repeated puzzles and their symmetric variants from a solution
+    * cache instead of solving them again
+    * 
+    * @param cache The solution cache (or null to always solve)
+    */
+   public void setCache(SolutionCache cache) {
+      this.cache = cache;
+   }
+
+   /**
+    * Skips puzzles whose outcomes are in a result store and appends the
+    * outcomes of the rest, so an interrupted run can be resumed
+    * 
+    * @param store The result store (or null to solve every puzzle)
+    */
+   public void setStore(ResultStore store) {
+      this.store = store;
+   }
+
+   /**
+    * Solves every puzzle file in the specified files and directories, writing
+    * each result as soon as it finishes and a summary at the end
+    * 
+    * @param paths The puzzle files and directories of puzzle files
+    * @return The number of puzzles that could not be solved, or -1 if no
+    *         puzzle files were found
+    */
+   public int run(List<String> paths) {
+      List<File> files = collectFiles(paths);
+      if (files.isEmpty()) {
+         System.err.println("No puzzle files found in " + String.join(", ", paths));
+         return -1;
+      }
+      ExecutorService executor = Executors.newFixedThreadPool(this.threadCount);
+      CompletionService<Result> completionService = new ExecutorCompletionService<Result>(executor);
+      this.startRun();
+      for (File file : files) {
+         completionService.submit(() -> this.solve(file));
+      }
+
+      try {
+         for (int i = 0; i < files.size(); i++) {
+            this.record(completionService.take().get());
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         this.out.println("Interrupted before all puzzles finished");
+      } catch (ExecutionException e) {
+         e.printStackTrace();
+      } finally {
+         executor.shutdownNow();
+      }
+      this.printSummary();
+      return this.failures;
+   }
+
+   /**
+    * Solves every puzzle in the specified files of one puzzle per line (and the
+    * files in the specified directories), reading each file as a stream and
+    * keeping only a few puzzles per thread in memory at once
+    * 
+    * @param paths The puzzle files and directories of puzzle files ("-" reads
+    *              the console input, like a pipe from PuzzleGenerator)
+    * @return The number of puzzles that could not be read or solved, or -1 if
+    *         no puzzle files were found
+    */
+   public int runLines(List<String> paths) {
+      List<File> files = collectFiles(paths);
+      if (files.isEmpty()) {
+         System.err.println("No puzzle files found in " + String.join(", ", paths));
+         return -1;
+      }
+      ExecutorService executor = Executors.newFixedThreadPool(this.threadCount);
+      CompletionService<Result> completionService = new ExecutorCompletionService<Result>(executor);
+      int maxPending = this.threadCount * PENDING_PER_THREAD;
+      int pending = 0;
+      this.startRun();
+      try {
+         for (File file : files) {
+            try (LinePuzzleReader reader = file.getPath().equals(STANDARD_INPUT)
+                  ? new LinePuzzleReader(Channels.newChannel(System.in))
+                  : new LinePuzzleReader(file)) {
+               while (true) {
+                  // wait for a result before reading more puzzles than the workers can hold
+                  if (pending == maxPending) {
+                     this.record(completionService.take().get());
+                     pending--;
+                  }
+                  String source = file.getPath() + ":" + (reader.getLineNumber() + 1);
+                  Board board;
+                  try {
+                     board = reader.next();
+                  } catch (IllegalArgumentException e) {
+                     this.record(new Result(source, this.engineName, ERROR, 0));
+                     continue;
+                  }
+                  if (board == null) {
+                     break;
+                  }
+                  source = file.getPath() + ":" + reader.getLineNumber();
+                  Board puzzle = board;
+                  String puzzleSource = source;
+                  completionService.submit(() -> this.solve(puzzle, puzzleSource, System.nanoTime()));
+                  pending++;
+               }
+            } catch (IOException e) {
+               this.record(new Result(file.getPath(), this.engineName, ERROR, 0));
+            }
+         }
+         for (; pending > 0; pending--) {
+            this.record(completionService.take().get());
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         this.out.println("Interrupted before all puzzles finished");
+      } catch (ExecutionException e) {
+         e.printStackTrace();
+      } finally {
+         executor.shutdownNow();
+      }
+      this.printSummary();
+      return this.failures;
+   }
+
+   /**
+    * Expands directories, and the directories inside them, into the puzzle
+    * files they contain (skipping hidden files)
+    * 
+    * @param paths The puzzle files and directories of puzzle files
+    * @return The puzzle files, with each directory's files in path order
+    */
+   public static List<File> collectFiles(List<String> paths) {
+      List<File> files = new ArrayList<File>();
+      for (String path : paths) {
+         File file = new File(path);
+         if (file.isDirectory()) {
+            try (Stream<Path> children = Files.walk(file.toPath())) {
+               children.filter(Files::isRegularFile)
+                     .map(Path::toFile)
+                     .filter(child -> !child.isHidden())
+                     .sorted()
+                     .forEach(files::add);
+            } catch (IOException | UncheckedIOException e) {
+               System.err.println("Error reading directory " + path + ": " + e.getMessage());
+            }
+         } else {
+            files.add(file);
+         }
+      }
+      return files;
+   }
+
+   /** The status of a solved puzzle */
+   private static final String SOLVED = "SOLVED";
+   /** The status of a puzzle with no solution */
+   private static final String UNSOLVED = "UNSOLVED";
+   /** The status of a puzzle that reached the time limit or node limit */
+   private static final String TIMEOUT = "TIMEOUT";
+   /** The status of a puzzle that could not be read */
+   private static final String ERROR = "ERROR";
+   /** The path that stands for the console input */
+   private static final String STANDARD_INPUT = "-";
+   /** The number of puzzles read but not yet solved, per worker thread */
+   private static final int PENDING_PER_THREAD = 4;
+   /** The name of the solving engine (or SolverRegistry.AUTO) */
+   private String engineName;
+   /** The number of worker threads */
+   private int threadCount;
+   /** The stream that results are written to */
+   private PrintStream out;
+   /** The time limit of each solve in milliseconds (0 for no limit) */
+   private long timeLimitMillis;
+   /** The number of search nodes each solve can visit (0 for no limit) */
+   private long nodeLimit;
+   /** The cache of solutions to check before solving (or null) */
+   private SolutionCache cache;
+   /** The store of finished outcomes to check before solving (or null) */
+   private ResultStore store;
+   /** The number of outcomes in the result store when the current run started */
+   private int storedAtStart;
+   /** The latencies of the finished puzzles of the current run */
+   private LatencyHistogram latencies;
+   /** The number of finished puzzles of the current run */
+   private int completed;
+   /** The number of puzzles of the current run that could not be solved */
+   private int failures;
+   /** The time the current run started */
+   private long startTime;
+   /** The slowest finished puzzle of the current run (or null) */
+   private Result slowest;
+
+   /**
+    * Reads and solves one puzzle file
+    * 
+    * @param file The puzzle file
+    * @return The result of the solve
+    */
+   private Result solve(File file) {
+      long startTime = System.nanoTime();
+      try {
+         return this.solve(Board.fromFile(file), file.getPath(), startTime);
+      } catch (Exception e) {
+         return new Result(file.getPath(), this.engineName, ERROR, System.nanoTime() - startTime);
+      }
+   }
+
+   /**
+    * Solves one puzzle
+    * 
+    * @param board     The puzzle to solve
+    * @param source    Where the puzzle came from
+    * @param startTime The time the puzzle started being read or solved
+    * @return The result of the solve
+    */
+   private Result solve(Board board, String source, long startTime) {
+      String engine = this.engineName;
+      String status;
+      SolveMetrics metrics = null;
+      try {
+         engine = SolverRegistry.resolveName(this.engineName, board.size);
+         SolveControl control = new SolveControl();
+         control.setTimeLimit(this.timeLimitMillis);
+         control.setNodeLimit(this.nodeLimit);
+         SolverStrategy strategy = SolverRegistry.get(engine, board.size);
+         if (this.cache != null) {
+            strategy = this.cache.wrap(strategy);
+         }
+         if (this.store != null) {
+            strategy = this.store.wrap(strategy);
+         }
+         SolveResult result = strategy.solve(board, control);
+         if (result.getStatus() == SolveStatus.TIMED_OUT) {
+            status = TIMEOUT;
+         } else {
+            status = result.isSolved() && board.isValid() ? SOLVED : UNSOLVED;
+         }
+         metrics = result.getMetrics();
+      } catch (Exception e) {
+         status = ERROR;
+      }
+      Result result = new Result(source, engine, status, System.nanoTime() - startTime);
+      result.metrics = metrics;
+      return result;
+   }
+
+   /**
+    * Clears the results of the previous run and starts timing a new one
+    */
+   private void startRun() {
+      this.latencies = new LatencyHistogram();
+      this.completed = 0;
+      this.failures = 0;
+      this.slowest = null;
+      this.storedAtStart = this.store != null ? this.store.count() : 0;
+      this.startTime = System.nanoTime();
+   }
+
+   /**
+    * Writes the result of one puzzle and adds it to the run's totals
+    * 
+    * @param result The result of the solve
+    */
+   private void record(Result result) {
+      this.latencies.record(result.nanos);
+      this.completed++;
+      if (!result.status.equals(SOLVED)) {
+         this.failures++;
+      }
+      if (this.slowest == null || result.nanos > this.slowest.nanos) {
+         this.slowest = result;
+      }
+      this.out.printf("%-8s %-12s %10.3f ms  %s%n", result.status, result.engine,
+            result.nanos / 1e6, result.source);
+   }
+
+   /**
+    * Writes the totals, throughput, and latency percentiles of the run
+    */
+   private void printSummary() {
+      long elapsed = System.nanoTime() - this.startTime;
+      this.out.println("----------------------");
+      this.out.printf("Puzzles: %d (%d failed) on %d threads in %.3f s%n",
+            this.completed, this.failures, this.threadCount, elapsed / 1e9);
+      this.out.printf("Throughput: %.1f puzzles/sec%n", this.completed / (elapsed / 1e9));
+      this.out.printf("Latency ms: p50 %.3f, p90 %.3f, p99 %.3f, max %.3f%n",
+            this.latencies.getPercentile(50) / 1e6, this.latencies.getPercentile(90) / 1e6,
+            this.latencies.getPercentile(99) / 1e6, this.latencies.getMax() / 1e6);
+      if (this.cache != null) {
+         this.out.println(this.cache);
+      }
+      if (SolverRegistry.PORTFOLIO.equals(this.engineName)) {
+         this.out.println(SolverRegistry.getPortfolio());
+      }
+      if (this.store != null) {
+         this.out.printf("Result store: %d outcomes (%d new)%n", this.store.count(),
+               this.store.count() - this.storedAtStart);
+      }
+      if (this.slowest != null && this.slowest.metrics != null) {
+         // explain the outlier with the work its search did
+         this.out.println("Slowest: " + this.slowest.source);
+         this.out.println("  " + this.slowest.metrics);
+      }
+   }
+
+   /**
+    * The outcome of solving one puzzle
+    */
+   private static class Result {
+      /**
+       * Creates a result
+       * 
+       * @param source Where the puzzle came from
+       * @param engine The name of the engine that solved it
+       * @param status The status of the solve
+       * @param nanos  The time taken to read and solve the puzzle
+       */
+      public Result(String source, String engine, String status, long nanos) {
+         this.source = source;
+         this.engine = engine;
+         this.status = status;
+         this.nanos = nanos;
+      }
+
+      /** Where the puzzle came from (a file, or a file and line number) */
+      private String source;
+      /** The name of the engine that solved it */
+      private String engine;
+      /** The status of the solve */
+      private String status;
+      /** The time taken to read and solve the puzzle in nanoseconds */
+      private long nanos;
+      /** The counters of the solve (or null if the puzzle was not solved by an engine) */
+      private SolveMetrics metrics;
+   }
+
+   /**
+    * Counts latencies in buckets that grow with the latency, so a run of any
+    * length takes the same memory and every percentile is within about 6% of
+    * the exact value
+    */
+   private static class LatencyHistogram {
+      /**
+       * Adds a latency
+       * 
+       * @param nanos The latency in nanoseconds
+       */
+      public void record(long nanos) {
+         long latency = Math.max(nanos, 0);
+         this.counts[getBucket(latency)]++;
+         this.count++;
+         this.max = Math.max(this.max, latency);
+      }
+
+      /**
+       * Gets a percentile of the latencies with the nearest-rank method
+       * 
+       * @param percent The percentile (0-100)
+       * @return The top of the bucket that holds the percentile in
+       *         nanoseconds, at most the largest latency (0 if there are none)
+       */
+      public long getPercentile(double percent) {
+         long rank = Math.max((long) Math.ceil(percent / 100 * this.count), 1);
+         long seen = 0;
+         for (int bucket = 0; bucket < this.counts.length; bucket++) {
+            seen += this.counts[bucket];
+            if (seen >= rank) {
+               return Math.min(getBucketTop(bucket), this.max);
+            }
+         }
+         return this.max;
+      }
+
+      /**
+       * Gets the largest latency
+       * 
+       * @return The exact largest latency in nanoseconds (0 if there are none)
+       */
+      public long getMax() {
+         return this.max;
+      }
+
+      /** The number of bits below the leading one bit that pick a bucket */
+      private static final int SUB_BUCKET_BITS = 4;
+      /** The number of buckets each doubling of the latency is split into */
+      private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+      /** The number of buckets, enough for every non-negative long */
+      private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+      /** The number of latencies in each bucket */
+      private long[] counts = new long[BUCKET_COUNT];
+      /** The number of latencies */
+      private long count;
+      /** The largest latency in nanoseconds */
+      private long max;
+
+      /**
+       * Gets the bucket of a latency (latencies below SUB_BUCKETS get a bucket
+       * each, and every doubling above that is split into SUB_BUCKETS buckets)
+       * 
+       * @param nanos The latency in nanoseconds (not negative)
+       * @return The index of the bucket
+       */
+      private static int getBucket(long nanos) {
+         if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+         }
+         int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+         return (shift + 1) * SUB_BUCKETS + (int) (nanos >>> shift) - SUB_BUCKETS;
+      }
+
+      /**
+       * Gets the largest latency that falls in a bucket
+       * 
+       * @param bucket The index of the bucket
+       * @return The latency in nanoseconds
+       */
+      private static long getBucketTop(int bucket) {
+         if (bucket < SUB_BUCKETS) {
+            return bucket;
+         }
+         int shift = bucket / SUB_BUCKETS - 1;
+         long bottom = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+         return bottom + (1L << shift) - 1;
+      }
+   }
+}
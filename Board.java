@@ -9,19 +9,48 @@
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Scanner;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class Board {
    /** The size of the board's rows and columns */
    public int size;
    /** The size of the board's boxes */
    public int boxSize;
-   /** The values of the board cells */
-   public ArrayList<ArrayList<Character>> cells;
    /** All legal move values */
    public List<Character> validValues;
+   /** The source recorded for puzzles taken from the puzzle catalog */
+   private static final String CATALOG_SOURCE = "catalog";
+   /** The smallest board size a puzzle can have */
+   private static final int MIN_PUZZLE_SIZE = 4;
+   /** The largest board size a puzzle can have */
+   private static final int MAX_PUZZLE_SIZE = 25;
+   /** The values of the board cells in row-major order (0 for an empty cell) */
+   private byte[] cells;
+   /** The bitmask of values present in each row (bit v - 1 for value v) */
+   private int[] rowMasks;
+   /** The bitmask of values present in each column (bit v - 1 for value v) */
+   private int[] columnMasks;
+   /** The bitmask of values present in each box (bit v - 1 for value v) */
+   private int[] boxMasks;
+   /** The number of times each value appears in each row */
+   private byte[] rowCounts;
+   /** The number of times each value appears in each column */
+   private byte[] columnCounts;
+   /** The number of times each value appears in each box */
+   private byte[] boxCounts;
+   /** The bitmask with a bit set for every legal value */
+   private int fullMask;
+   /** The number of cells with a value */
+   private int filledCount;
+   /**
+    * The number of repeated values, summed over every row, column, and box (a
+    * value that appears k times in a unit adds k - 1)
+    */
+   private int conflictCount;
 
    /**
     * Creates a new empty board
@@ -31,14 +60,14 @@ public class Board {
    public Board(int boardSize) {
       this.size = boardSize;
       this.boxSize = (int) Math.sqrt(boardSize);
-      this.cells = new ArrayList<ArrayList<Character>>();
-      for (int i = 0; i < boardSize; i++) {
-         ArrayList<Character> row = new ArrayList<Character>();
-         for (int j = 0; j < boardSize; j++) {
-            row.add('0');
-         }
-         this.cells.add(row);
-      }
+      this.cells = new byte[boardSize * boardSize];
+      this.rowMasks = new int[boardSize];
+      this.columnMasks = new int[boardSize];
+      this.boxMasks = new int[boardSize];
+      this.rowCounts = new byte[boardSize * boardSize];
+      this.columnCounts = new byte[boardSize * boardSize];
+      this.boxCounts = new byte[boardSize * boardSize];
+      this.fullMask = (1 << boardSize) - 1;
 
       ArrayList<Character> possibleValues = new ArrayList<Character>();
 
@@ -66,60 +95,239 @@ public class Board {
    }
 
    /**
-    * Creates a new board from the values of a randomly chosen puzzle text file
+    * Creates a new board with the same cells as another board
+    * 
+    * @param board The board to copy
+    */
+   public Board(Board board) {
+      this.size = board.size;
+      this.boxSize = board.boxSize;
+      this.validValues = board.validValues;
+      this.cells = board.cells.clone();
+      this.rowMasks = board.rowMasks.clone();
+      this.columnMasks = board.columnMasks.clone();
+      this.boxMasks = board.boxMasks.clone();
+      this.rowCounts = board.rowCounts.clone();
+      this.columnCounts = board.columnCounts.clone();
+      this.boxCounts = board.boxCounts.clone();
+      this.fullMask = board.fullMask;
+      this.filledCount = board.filledCount;
+      this.conflictCount = board.conflictCount;
+   }
+
+   /**
+    * Creates a new board from the values of a randomly chosen puzzle from the
+    * puzzle catalog
     * 
     * @param boardSize The size of the board's rows and columns
-    * @return
+    * @return The board described by the puzzle, or an empty board if there are
+    *         no puzzles of the board size
     */
    public static Board random(int boardSize) {
-      ArrayList<ArrayList<Character>> cells = new ArrayList<ArrayList<Character>>();
-      File folder = new File("puzzles/" + boardSize + "x" + boardSize);
-      File[] puzzleFiles = folder.listFiles();
+      PuzzleParseEvent event = new PuzzleParseEvent();
+      event.begin();
+      Board board = PuzzleCatalog.getDefault().random(boardSize);
+      event.finish(CATALOG_SOURCE, board);
+      if (board == null) {
+         System.err.println("No " + boardSize + "x" + boardSize + " puzzles found.");
+         return new Board(boardSize);
+      }
+      return board;
+   }
+
+   /**
+    * Creates a new board from cell values
+    * 
+    * @param boardSize The size of the board's rows and columns
+    * @param values    The cell values in row-major order (0 for an empty cell)
+    * @return The board with the values
+    */
+   public static Board fromValues(int boardSize, byte[] values) {
+      Board board = new Board(boardSize);
+      for (int i = 0; i < values.length; i++) {
+         if (values[i] != 0) {
+            board.setValue(i / boardSize, i % boardSize, values[i]);
+         }
+      }
+      return board;
+   }
+
+   /**
+    * Creates a new board from the values of a puzzle text file
+    * 
+    * @param file The puzzle text file (one row per line)
+    * @return The board described by the file
+    * @throws FileNotFoundException if the file cannot be opened
+    */
+   public static Board fromFile(File file) throws FileNotFoundException {
+      PuzzleParseEvent event = new PuzzleParseEvent();
+      event.begin();
+      Board board = null;
       try {
-         File file = puzzleFiles[(int) (Math.random() * puzzleFiles.length)];
+         ArrayList<String> lines = new ArrayList<String>();
          Scanner reader = new Scanner(file);
          while (reader.hasNextLine()) {
-            String line = reader.nextLine().replaceAll("[^*.0-9A-Z]*", "");
-            if (!line.equals("")) {
-               ArrayList<Character> row = new ArrayList<Character>();
-               for (char value : line.toCharArray()) {
-                  // Replaces '0' with 'G' and '*' with '0' for 16x16
-                  if (boardSize == 16) {
-                     if (value == '0') {
-                        value = 'G';
-                     } else if (value == '*') {
-                        value = '0';
-                     }
-                  }
-                  // Replaces Q-Y with 1-9 and '.' with '0' for 25x25
-                  if (boardSize == 25) {
-                     Map<Character, Character> characterReplacements = Map.of(
-                           '.', '0',
-                           'Q', '1',
-                           'R', '2',
-                           'S', '3',
-                           'T', '4',
-                           'U', '5',
-                           'V', '6',
-                           'W', '7',
-                           'X', '8',
-                           'Y', '9');
-                     if (characterReplacements.containsKey(value)) {
-                        value = characterReplacements.get(value);
-                     }
-                  }
-                  row.add(value);
-               }
-               cells.add(row);
-            }
+            lines.add(reader.nextLine());
          }
          reader.close();
-      } catch (FileNotFoundException e) {
-         System.out.println("Error accessing file.");
-         e.printStackTrace();
+         board = fromLines(lines);
+         return board;
+      } finally {
+         event.finish(file.getPath(), board);
+      }
+   }
+
+   /**
+    * Creates a new board from the lines of a puzzle, ignoring blank lines and
+    * separator characters (the board size is the number of rows)
+    * 
+    * @param lines The lines of the puzzle (one row per line)
+    * @return The board described by the lines
+    * @throws IllegalArgumentException if the lines are not a square board whose
+    *                                  size is a perfect square from 4 to 25
+    */
+   public static Board fromLines(List<String> lines) {
+      ArrayList<String> rows = new ArrayList<String>();
+      StringBuilder symbols = new StringBuilder();
+      for (String line : lines) {
+         symbols.setLength(0);
+         for (int i = 0; i < line.length(); i++) {
+            char symbol = line.charAt(i);
+            if (isCellSymbol(symbol)) {
+               symbols.append(symbol);
+            }
+         }
+         if (symbols.length() > 0) {
+            rows.add(symbols.toString());
+         }
+      }
+
+      int boardSize = rows.size();
+      if (!isSupportedSize(boardSize)) {
+         throw new IllegalArgumentException("A puzzle with " + boardSize + " rows is not a supported board");
       }
+      Board board = new Board(boardSize);
+      for (int r = 0; r < boardSize; r++) {
+         String row = rows.get(r);
+         if (row.length() != boardSize) {
+            throw new IllegalArgumentException(
+                  "Row " + (r + 1) + " has " + row.length() + " cells instead of " + boardSize);
+         }
+         for (int c = 0; c < boardSize; c++) {
+            board.setCell(r, c, convertSymbol(row.charAt(c), boardSize));
+         }
+      }
+      return board;
+   }
+
+   /**
+    * Checks if a character of a puzzle file stands for a cell (a value, or '*'
+    * or '.' for an empty cell), as opposed to a separator
+    * 
+    * @param symbol The character from the puzzle file
+    * @return true if the character is a cell symbol (otherwise, false)
+    */
+   public static boolean isCellSymbol(char symbol) {
+      return symbol == '*' || symbol == '.' || (symbol >= '0' && symbol <= '9') || (symbol >= 'A' && symbol <= 'Z');
+   }
 
-      return new Board(cells);
+   /**
+    * Checks if puzzles of a size can be read and solved (a perfect square from
+    * 4 to 25, so the board divides into square boxes)
+    * 
+    * @param boardSize The size of the board's rows and columns
+    * @return true if the size is supported (otherwise, false)
+    */
+   public static boolean isSupportedSize(int boardSize) {
+      int boxSize = (int) Math.round(Math.sqrt(boardSize));
+      return boardSize >= MIN_PUZZLE_SIZE && boardSize <= MAX_PUZZLE_SIZE && boxSize * boxSize == boardSize;
+   }
+
+   /**
+    * Converts a character from a puzzle file to the board's cell character
+    * 
+    * @param value     The character from the puzzle file
+    * @param boardSize The size of the board's rows and columns
+    * @return The cell character ('0' for an empty cell)
+    */
+   public static char convertSymbol(char value, int boardSize) {
+      // Replaces '0' with 'G' and '*' with '0' for 16x16
+      if (boardSize == 16) {
+         if (value == '0') {
+            return 'G';
+         } else if (value == '*') {
+            return '0';
+         }
+      }
+      // Replaces Q-Y with 1-9 and '.' with '0' for 25x25
+      if (boardSize == 25) {
+         if (value == '.') {
+            return '0';
+         } else if (value >= 'Q' && value <= 'Y') {
+            return (char) ('1' + value - 'Q');
+         }
+      }
+      return value;
+   }
+
+   /**
+    * Converts a cell character to the character puzzle files use for it (the
+    * reverse of convertSymbol)
+    * 
+    * @param symbol    The cell character ('0' for an empty cell)
+    * @param boardSize The size of the board's rows and columns
+    * @return The character from the puzzle file
+    */
+   public static char toFileSymbol(char symbol, int boardSize) {
+      // Replaces 'G' with '0' and '0' with '*' for 16x16
+      if (boardSize == 16) {
+         if (symbol == 'G') {
+            return '0';
+         } else if (symbol == '0') {
+            return '*';
+         }
+      }
+      // Replaces 1-9 with Q-Y and '0' with '.' for 25x25
+      if (boardSize == 25) {
+         if (symbol == '0') {
+            return '.';
+         } else if (symbol >= '1' && symbol <= '9') {
+            return (char) ('Q' + symbol - '1');
+         }
+      }
+      return symbol;
+   }
+
+   /**
+    * Converts a cell character to its numeric value
+    * 
+    * @param symbol The cell character ('1'-'9', then 'A'-'Z')
+    * @return The value of the character (1-35), or 0 if it is not a value
+    */
+   public static int toValue(char symbol) {
+      if (symbol >= '1' && symbol <= '9') {
+         return symbol - '0';
+      }
+      if (symbol >= 'A' && symbol <= 'Z') {
+         return symbol - 'A' + 10;
+      }
+      return 0;
+   }
+
+   /**
+    * Converts a numeric value to its cell character
+    * 
+    * @param value The value (0 for an empty cell)
+    * @return The cell character ('0' for an empty cell)
+    */
+   public static char toSymbol(int value) {
+      if (value == 0) {
+         return '0';
+      }
+      if (value <= 9) {
+         return (char) ('0' + value);
+      }
+      return (char) ('A' + value - 10);
    }
 
    /**
@@ -134,7 +342,7 @@ public class Board {
             if (j % this.boxSize == 0 && j != 0) {
                System.out.print("| ");
             }
-            System.out.print(this.cells.get(i).get(j) + " ");
+            System.out.print(this.getCell(i, j) + " ");
          }
          System.out.println();
       }
@@ -150,7 +358,7 @@ public class Board {
          for (int r = 0; r < newCells.size(); r++) {
             ArrayList<Character> row = newCells.get(r);
             for (int c = 0; c < row.size(); c++) {
-               this.cells.get(r).set(c, row.get(c));
+               this.setCell(r, c, row.get(c));
             }
          }
       } else {
@@ -158,20 +366,222 @@ public class Board {
       }
    }
 
+   /**
+    * Updates the board's cells to match another board of the same size
+    * 
+    * @param board The board to copy the cells from
+    */
+   public void updateCells(Board board) {
+      if (board.size == this.size) {
+         for (int r = 0; r < this.size; r++) {
+            for (int c = 0; c < this.size; c++) {
+               this.setValue(r, c, board.getValue(r, c));
+            }
+         }
+      } else {
+         System.err.println("Cannot update board cells: invalid input dimensions");
+      }
+   }
+
+   /**
+    * Gets the character of a cell
+    * 
+    * @param row The row of the cell
+    * @param col The column of the cell
+    * @return The cell character ('0' for an empty cell)
+    */
+   public char getCell(int row, int col) {
+      return toSymbol(this.cells[row * this.size + col]);
+   }
+
+   /**
+    * Sets the character of a cell (characters that are not legal values empty
+    * the cell)
+    * 
+    * @param row   The row of the cell
+    * @param col   The column of the cell
+    * @param value The new cell character
+    */
+   public void setCell(int row, int col, char value) {
+      int numericValue = toValue(value);
+      this.setValue(row, col, numericValue <= this.size ? numericValue : 0);
+   }
+
+   /**
+    * Gets the numeric value of a cell
+    * 
+    * @param row The row of the cell
+    * @param col The column of the cell
+    * @return The cell value (1 to size, or 0 for an empty cell)
+    */
+   public int getValue(int row, int col) {
+      return this.cells[row * this.size + col];
+   }
+
+   /**
+    * Sets the numeric value of a cell and updates the occupancy of its row,
+    * column, and box
+    * 
+    * @param row   The row of the cell
+    * @param col   The column of the cell
+    * @param value The new cell value (1 to size, or 0 to empty the cell)
+    */
+   public void setValue(int row, int col, int value) {
+      int index = row * this.size + col;
+      int box = this.getBoxIndex(row, col);
+      int oldValue = this.cells[index];
+      if (oldValue == value) {
+         return;
+      }
+      if (oldValue != 0) {
+         int bit = 1 << (oldValue - 1);
+         this.filledCount--;
+         if (--this.rowCounts[row * this.size + oldValue - 1] == 0) {
+            this.rowMasks[row] &= ~bit;
+         } else {
+            this.conflictCount--;
+         }
+         if (--this.columnCounts[col * this.size + oldValue - 1] == 0) {
+            this.columnMasks[col] &= ~bit;
+         } else {
+            this.conflictCount--;
+         }
+         if (--this.boxCounts[box * this.size + oldValue - 1] == 0) {
+            this.boxMasks[box] &= ~bit;
+         } else {
+            this.conflictCount--;
+         }
+      }
+      if (value != 0) {
+         int bit = 1 << (value - 1);
+         this.filledCount++;
+         if (this.rowCounts[row * this.size + value - 1]++ > 0) {
+            this.conflictCount++;
+         }
+         if (this.columnCounts[col * this.size + value - 1]++ > 0) {
+            this.conflictCount++;
+         }
+         if (this.boxCounts[box * this.size + value - 1]++ > 0) {
+            this.conflictCount++;
+         }
+         this.rowMasks[row] |= bit;
+         this.columnMasks[col] |= bit;
+         this.boxMasks[box] |= bit;
+      }
+      this.cells[index] = (byte) value;
+   }
+
+   /**
+    * Empties a cell
+    * 
+    * @param row The row of the cell
+    * @param col The column of the cell
+    */
+   public void clearCell(int row, int col) {
+      this.setValue(row, col, 0);
+   }
+
+   /**
+    * Gets the values that can be placed in a cell without repeating a value in
+    * its row, column, or box
+    * 
+    * @param row The row of the cell
+    * @param col The column of the cell
+    * @return The bitmask of placeable values (bit v - 1 for value v)
+    */
+   public int getCandidates(int row, int col) {
+      return ~(this.rowMasks[row] | this.columnMasks[col] | this.boxMasks[this.getBoxIndex(row, col)])
+            & this.fullMask;
+   }
+
+   /**
+    * Checks if a value can be placed in a cell without repeating a value in its
+    * row, column, or box
+    * 
+    * @param row   The row of the cell
+    * @param col   The column of the cell
+    * @param value The value to place
+    * @return true if the value can be placed (otherwise, false)
+    */
+   public boolean canPlace(int row, int col, int value) {
+      return (this.getCandidates(row, col) & (1 << (value - 1))) != 0;
+   }
+
+   /**
+    * Gets the index of the box containing a cell
+    * 
+    * @param row The row of the cell
+    * @param col The column of the cell
+    * @return The box index (boxes are numbered in row-major order)
+    */
+   public int getBoxIndex(int row, int col) {
+      return (row / this.boxSize) * this.boxSize + col / this.boxSize;
+   }
+
+   /**
+    * Lists the cells of every row, column, and box
+    * 
+    * @return The row-major cell indexes of each row, then each column, then each
+    *         box
+    */
+   public int[][] createUnits() {
+      int[][] units = new int[3 * this.size][this.size];
+      for (int i = 0; i < this.size; i++) {
+         int startRow = this.boxSize * (i / this.boxSize);
+         int startCol = this.boxSize * (i % this.boxSize);
+         for (int j = 0; j < this.size; j++) {
+            units[i][j] = i * this.size + j;
+            units[this.size + i][j] = j * this.size + i;
+            units[2 * this.size + i][j] = (startRow + j / this.boxSize) * this.size
+                  + startCol + j % this.boxSize;
+         }
+      }
+      return units;
+   }
+
+   /**
+    * Checks if no value is repeated in any row, column, or box (empty cells are
+    * allowed)
+    * 
+    * @return true if the filled cells do not conflict (otherwise, false)
+    */
+   public boolean isConsistent() {
+      return this.conflictCount == 0;
+   }
+
+   /**
+    * Gets the cells whose value is repeated in their row, column, or box
+    * 
+    * @return The row-major indexes of the conflicting cells in ascending order
+    */
+   public int[] getConflictingCells() {
+      if (this.conflictCount == 0) {
+         return new int[0];
+      }
+      int[] conflicts = new int[this.cells.length];
+      int conflictTotal = 0;
+      for (int index = 0; index < this.cells.length; index++) {
+         int value = this.cells[index];
+         int row = index / this.size;
+         int col = index % this.size;
+         if (value != 0 && (this.rowCounts[row * this.size + value - 1] > 1
+               || this.columnCounts[col * this.size + value - 1] > 1
+               || this.boxCounts[this.getBoxIndex(row, col) * this.size + value - 1] > 1)) {
+            conflicts[conflictTotal] = index;
+            conflictTotal++;
+         }
+      }
+      return Arrays.copyOf(conflicts, conflictTotal);
+   }
+
    /**
     * Checks if the board is valid
     * 
     * @return true if the board is valid (otherwise, false)
     */
    public boolean isValid() {
-      ArrayList<Boolean> validity = new ArrayList<Boolean>();
-      validity.add(this.areRowsValid());
-      validity.add(this.areColumnsValid());
-      validity.add(this.areBoxesValid());
-      if (validity.get(0) && validity.get(1) && validity.get(2)) {
-         return true;
-      }
-      return false;
+      // a full board with no repeated values has every value in every unit
+      return this.filledCount == this.cells.length && this.conflictCount == 0;
    }
 
    /**
@@ -183,20 +593,15 @@ public class Board {
       this.print();
       System.out.println();
 
-      ArrayList<Boolean> validity = new ArrayList<Boolean>();
-      validity.add(this.areRowsValid());
-      validity.add(this.areColumnsValid());
-      validity.add(this.areBoxesValid());
-      System.out.println("Rows valid: " + validity.get(0));
-      System.out.println("Columns valid: " + validity.get(1));
-      System.out.println("Boxes valid: " + validity.get(2));
+      boolean rowsValid = this.areRowsValid();
+      boolean columnsValid = this.areColumnsValid();
+      boolean boxesValid = this.areBoxesValid();
+      System.out.println("Rows valid: " + rowsValid);
+      System.out.println("Columns valid: " + columnsValid);
+      System.out.println("Boxes valid: " + boxesValid);
       System.out.println("----------------------");
       System.out.print("Board valid: ");
-      if (validity.get(0) && validity.get(1) && validity.get(2)) {
-         System.out.println(true);
-      } else {
-         System.out.println(false);
-      }
+      System.out.println(rowsValid && columnsValid && boxesValid);
    }
 
    /**
@@ -205,11 +610,9 @@ public class Board {
     * @return true if all boxes are valid (otherwise, false)
     */
    public boolean areBoxesValid() {
-      for (int i = 0; i < this.size; i += this.boxSize) {
-         for (int j = 0; j < this.size; j += this.boxSize) {
-            if (!this.isBoxValid(i, j)) {
-               return false;
-            }
+      for (int i = 0; i < this.size; i++) {
+         if (this.boxMasks[i] != this.fullMask) {
+            return false;
          }
       }
       return true;
@@ -223,20 +626,8 @@ public class Board {
     * @return true if the specified box is valid (otherwise, false)
     */
    public boolean isBoxValid(int startRow, int startCol) {
-      ArrayList<Character> values = new ArrayList<Character>();
-      for (int i = 0; i < this.boxSize; i++) {
-         for (int j = 0; j < this.boxSize; j++) {
-            int row = startRow + i;
-            int col = startCol + j;
-            char value = cells.get(row).get(col);
-            if (this.validValues.contains(value) && !values.contains(value)) {
-               values.add(value);
-            } else {
-               return false;
-            }
-         }
-      }
-      return true;
+      // a box holds exactly size cells, so it is valid when all size values appear
+      return this.boxMasks[this.getBoxIndex(startRow, startCol)] == this.fullMask;
    }
 
    /**
@@ -260,15 +651,7 @@ public class Board {
     * @return true if the specified row is valid (otherwise, false)
     */
    public boolean isRowValid(int rowIndex) {
-      ArrayList<Character> values = new ArrayList<Character>();
-      for (char value : cells.get(rowIndex)) {
-         if (this.validValues.contains(value) && !values.contains(value)) {
-            values.add(value);
-         } else {
-            return false;
-         }
-      }
-      return true;
+      return this.rowMasks[rowIndex] == this.fullMask;
    }
 
    /**
@@ -292,16 +675,31 @@ public class Board {
     * @return true if the specified column is valid (otherwise, false)
     */
    public boolean isColumnValid(int columnIndex) {
-      ArrayList<Character> values = new ArrayList<Character>();
-      for (ArrayList<Character> row : cells) {
-         char value = row.get(columnIndex);
-         if (this.validValues.contains(value) && !values.contains(value)) {
-            values.add(value);
-         } else {
-            return false;
+      return this.columnMasks[columnIndex] == this.fullMask;
+   }
+
+   /**
+    * Gets the number of filled cells
+    * 
+    * @return The number of cells with a value
+    */
+   public int getFilledCount() {
+      return this.filledCount;
+   }
+
+   /**
+    * Writes the board as one line of puzzle file characters in row-major order
+    * 
+    * @return The line (without a line break)
+    */
+   public String toLine() {
+      StringBuilder line = new StringBuilder(this.cells.length);
+      for (int r = 0; r < this.size; r++) {
+         for (int c = 0; c < this.size; c++) {
+            line.append(toFileSymbol(this.getCell(r, c), this.size));
          }
       }
-      return true;
+      return line.toString();
    }
 
    /**
@@ -310,15 +708,7 @@ public class Board {
     * @return true if all cells in the board have a value (otherwise, false)
     */
    public boolean isFull() {
-      boolean isFull = true;
-      for (ArrayList<Character> row : this.cells) {
-         for (char c : row) {
-            if (!validValues.contains(c)) {
-               isFull = false;
-            }
-         }
-      }
-      return isFull;
+      return this.filledCount == this.cells.length;
    }
 
    /**
@@ -329,37 +719,47 @@ public class Board {
     * @return true if the move is valid (otherwise, false)
     */
    public boolean isValidMove(int moveRow, int moveCol) {
-      boolean isValidMove = true;
-      char move = this.cells.get(moveRow).get(moveCol);
-
-      // check row
-      for (int c = 0; c < this.size; c++) {
-         if (c != moveCol && move == this.cells.get(moveRow).get(c)) {
-            isValidMove = false;
-         }
+      int move = this.getValue(moveRow, moveCol);
+      if (move == 0) {
+         return false;
       }
+      int box = this.getBoxIndex(moveRow, moveCol);
+      return this.rowCounts[moveRow * this.size + move - 1] == 1
+            && this.columnCounts[moveCol * this.size + move - 1] == 1
+            && this.boxCounts[box * this.size + move - 1] == 1;
+   }
 
-      // check column
-      for (int r = 0; r < this.size; r++) {
-         if (r != moveRow && move == this.cells.get(r).get(moveCol)) {
-            isValidMove = false;
-         }
-      }
+   /**
+    * Counts the solutions of the board with the fastest counting engine for its
+    * size, stopping as soon as the limit is reached
+    * 
+    * @param limit The largest count of interest (at least 1)
+    * @return The number of solutions, or the limit if there are at least that
+    *         many (the board is left unchanged)
+    */
+   public int countSolutions(int limit) {
+      return SolverRegistry.countSolutions(this, limit);
+   }
 
-      // check box
-      int startRow = this.boxSize * (moveRow / boxSize);
-      int startCol = this.boxSize * (moveCol / boxSize);
-      for (int i = 0; i < this.boxSize; i++) {
-         for (int j = 0; j < this.boxSize; j++) {
-            int row = startRow + i;
-            int col = startCol + j;
-            if (row != moveRow && col != moveCol && move == this.cells.get(row).get(col)) {
-               isValidMove = false;
-            }
-         }
-      }
+   /**
+    * Checks if the board has exactly one solution, stopping as soon as a second
+    * solution is found
+    * 
+    * @return true if the board has exactly one solution (otherwise, false)
+    */
+   public boolean isUnique() {
+      return this.countSolutions(2) == 1;
+   }
 
-      return isValidMove;
+   /**
+    * Creates a lazy stream of the board's solutions, which are only searched
+    * for as the stream is consumed (a parallel stream splits the search
+    * between threads)
+    * 
+    * @return The stream of solved copies of the board
+    */
+   public Stream<Board> solutions() {
+      return StreamSupport.stream(new SolutionSpliterator(this), false);
    }
 
    /**
@@ -370,14 +770,12 @@ public class Board {
    public ArrayList<Board> getNeighbors() {
       // fill first empty cell with all possible VALID values
       ArrayList<Board> neighbors = new ArrayList<Board>();
-      for (int r = 0; r < this.cells.size(); r++) {
-         ArrayList<Character> row = this.cells.get(r);
-         for (int c = 0; c < row.size(); c++) {
-            char value = row.get(c);
-            if (value == '0') {
-               for (char validValue : this.validValues) {
-                  Board neighbor = new Board(this.cells);
-                  neighbor.cells.get(r).set(c, validValue);
+      for (int r = 0; r < this.size; r++) {
+         for (int c = 0; c < this.size; c++) {
+            if (this.getValue(r, c) == 0) {
+               for (int value = 1; value <= this.size; value++) {
+                  Board neighbor = new Board(this);
+                  neighbor.setValue(r, c, value);
                   if (neighbor.isValidMove(r, c)) {
                      neighbors.add(neighbor);
                   }
@@ -396,28 +794,71 @@ public class Board {
     * @return The solved board (or the starting board if no solution is found)
     */
    public Board solveDFS() {
+      SolveMetrics metrics = new SolveMetrics();
+      Board solution = this.solveDFS(new SolveControl(), metrics);
+      if (solution.isValid()) {
+         System.out.println("Boards visited: " + metrics.getBoardsVisited());
+      }
+      return solution;
+   }
+
+   /**
+    * Solves the board with DFS, stopping early if the control is cancelled
+    * 
+    * @param control The control that can stop the search
+    * @param metrics The counters to record the search's work in
+    * @return The solved board (or the starting board if no solution is found or
+    *         the search was cancelled)
+    */
+   public Board solveDFS(SolveControl control, SolveMetrics metrics) {
       ArrayList<Board> queue = new ArrayList<Board>();
       queue.add(this);
-      int boardsVisited = 0;
+      metrics.openBranches(1);
+      boolean isTracing = SolveEvent.isSearchRecorded();
+      long searchStart = System.nanoTime();
+
+      try {
+         while (!queue.isEmpty()) {
+            Board currentBoard = queue.remove(0);
+            metrics.closeBranch();
+            metrics.countBoardVisited();
+            metrics.enterDepth(currentBoard.filledCount - this.filledCount);
+            if (control.checkpoint(metrics.getBoardsVisited())) {
+               return this;
+            }
+            if (control.isBetterPartial(currentBoard.filledCount) && currentBoard.isConsistent()) {
+               // queued boards are never changed, so the board itself can be kept
+               control.offerPartial(currentBoard);
+            }
 
-      while (!queue.isEmpty()) {
-         Board currentBoard = queue.remove(0);
-         boardsVisited++;
+            if (currentBoard.isFull()) {
+               if (currentBoard.isValid()) {
+                  return currentBoard;
+               }
+            }
 
-         if (currentBoard.isFull()) {
-            if (currentBoard.isValid()) {
-               System.out.println("Boards visited: " + boardsVisited);
-               return currentBoard;
+            ArrayList<Board> neighbors = currentBoard.getNeighbors();
+            for (Board neighbor : neighbors) {
+               queue.add(neighbor);
+               metrics.countGuess();
+            }
+            metrics.openBranches(neighbors.size());
+            int depth = currentBoard.filledCount - this.filledCount;
+            if (neighbors.isEmpty()) {
+               metrics.countBacktrack();
+               if (isTracing) {
+                  BacktrackEvent.emit(SolverRegistry.BFS, this.size, depth, metrics.getBoardsVisited());
+               }
+            } else if (isTracing) {
+               BranchEvent.emit(SolverRegistry.BFS, this.size, depth, -1, neighbors.size(),
+                     metrics.getBoardsVisited());
             }
-         }
 
-         ArrayList<Board> neighbors = currentBoard.getNeighbors();
-         for (Board neighbor : neighbors) {
-            queue.add(neighbor);
          }
 
+         return this;
+      } finally {
+         metrics.addSearchNanos(System.nanoTime() - searchStart);
       }
-
-      return this;
    }
 }
@@ -0,0 +1,77 @@
+
+/**
+ * A JDK Flight Recorder event for a branch decision of a search: the cell (or
+ * the value's place in a row, column, or box) the engine guesses on and how
+ * many options it has
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("sudoku.Branch")
+@Label("Branch")
+@Category({ "Sudoku", "Search" })
+@Description("A search guessing on a cell or a value's place")
+@StackTrace(false)
+public class BranchEvent extends Event {
+   /**
+    * Checks if branch events are being recorded
+    * 
+    * @return true if the event is enabled in a running recording (otherwise,
+    *         false)
+    */
+   public static boolean isRecording() {
+      return new BranchEvent().isEnabled();
+   }
+
+   /**
+    * Records a branch decision, if the event is enabled
+    * 
+    * @param engine      The name of the engine
+    * @param boardSize   The size of the board's rows and columns
+    * @param depth       The number of guesses above the branch
+    * @param cell        The row-major index of the cell guessed on (-1 when
+    *                    the engine places a value within a row, column, or box
+    *                    instead)
+    * @param optionCount The number of options the branch tries
+    * @param nodes       The number of search nodes visited so far
+    */
+   public static void emit(String engine, int boardSize, int depth, int cell, int optionCount, long nodes) {
+      BranchEvent event = new BranchEvent();
+      if (event.shouldCommit()) {
+         event.engine = engine;
+         event.boardSize = boardSize;
+         event.depth = depth;
+         event.cell = cell;
+         event.optionCount = optionCount;
+         event.boardsVisited = nodes;
+         event.commit();
+      }
+   }
+
+   /** The name of the engine */
+   @Label("Engine")
+   private String engine;
+   /** The size of the board's rows and columns */
+   @Label("Board Size")
+   private int boardSize;
+   /** The number of guesses above the branch */
+   @Label("Depth")
+   private int depth;
+   /** The row-major index of the cell guessed on (or -1) */
+   @Label("Cell")
+   private int cell;
+   /** The number of options the branch tries */
+   @Label("Options")
+   private int optionCount;
+   /** The number of search nodes visited so far */
+   @Label("Boards Visited")
+   private long boardsVisited;
+}
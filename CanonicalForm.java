@@ -0,0 +1,244 @@
+
+/**
+ * Maps a board to a canonical form under the Sudoku symmetries (relabeling the
+ * digits, transposing, permuting the bands and stacks, and permuting the rows
+ * within each band and the columns within each stack), so symmetric variants
+ * of a puzzle share one form, and maps solutions of the form back to the board
+ * 
+ * Rows and columns are ordered by signatures built from the givens that every
+ * symmetry preserves, so the form is found in one pass instead of a search over
+ * the whole group. Rows, columns, bands, or stacks whose signatures tie keep
+ * their original order, so some variants of very regular puzzles get different
+ * forms. That only costs a cache miss, since every form is built with a real
+ * symmetry that is inverted exactly.
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.util.Arrays;
+
+public class CanonicalForm {
+   /**
+    * Finds the canonical form of a board
+    * 
+    * @param board The board
+    * @return The canonical form, with the symmetry that maps the board to it
+    */
+   public static CanonicalForm of(Board board) {
+      CanonicalForm form = new CanonicalForm(board, false);
+      CanonicalForm transposed = new CanonicalForm(board, true);
+      return transposed.key.compareTo(form.key) < 0 ? transposed : form;
+   }
+
+   /**
+    * Gets the canonical form as a key, which is equal for boards that are
+    * mapped to the same form
+    * 
+    * @return The canonical cell values in row-major order, one char per cell
+    */
+   public String getKey() {
+      return this.key;
+   }
+
+   /**
+    * Maps a filled-in copy of the board (like its solution) to the canonical
+    * form's coordinates and digits
+    * 
+    * @param solved The board after solving (the same size as the board)
+    * @return The canonical cell values in row-major order
+    */
+   public byte[] toCanonical(Board solved) {
+      byte[] values = new byte[this.size * this.size];
+      for (int i = 0; i < this.size; i++) {
+         for (int j = 0; j < this.size; j++) {
+            int value = this.getValue(solved, this.rowOrder[i], this.columnOrder[j]);
+            values[i * this.size + j] = (byte) this.labels[value];
+         }
+      }
+      return values;
+   }
+
+   /**
+    * Fills the empty cells of the board from a solution of the canonical form
+    * 
+    * @param board           The board this form was found for
+    * @param canonicalValues The canonical solution's cell values in row-major
+    *                        order
+    */
+   public void applyTo(Board board, byte[] canonicalValues) {
+      int[] digits = new int[this.size + 1];
+      for (int value = 1; value <= this.size; value++) {
+         digits[this.labels[value]] = value;
+      }
+      for (int i = 0; i < this.size; i++) {
+         for (int j = 0; j < this.size; j++) {
+            int row = this.isTransposed ? this.columnOrder[j] : this.rowOrder[i];
+            int col = this.isTransposed ? this.rowOrder[i] : this.columnOrder[j];
+            if (board.getValue(row, col) == 0) {
+               board.setValue(row, col, digits[canonicalValues[i * this.size + j]]);
+            }
+         }
+      }
+   }
+
+   /** The number of times the signatures are refined by each other */
+   private static final int REFINEMENT_ROUNDS = 3;
+   /** The multiplier that spreads signatures before they are added */
+   private static final long MIX = 0x9E3779B97F4A7C15L;
+   /** The size of the board's rows and columns */
+   private int size;
+   /** The size of the board's boxes */
+   private int boxSize;
+   /** Whether rows and columns are swapped before ordering */
+   private boolean isTransposed;
+   /** The row (of the possibly transposed board) at each canonical row */
+   private int[] rowOrder;
+   /** The column (of the possibly transposed board) at each canonical column */
+   private int[] columnOrder;
+   /** The canonical digit of each board digit (0 stays 0) */
+   private int[] labels;
+   /** The canonical cell values, one char per cell */
+   private String key;
+
+   /**
+    * Orders the rows and columns of a board in one orientation and relabels its
+    * digits
+    * 
+    * @param board        The board
+    * @param isTransposed Whether rows and columns are swapped first
+    */
+   private CanonicalForm(Board board, boolean isTransposed) {
+      this.size = board.size;
+      this.boxSize = board.boxSize;
+      this.isTransposed = isTransposed;
+
+      // count the givens of each row, column, digit, and box, then refine each
+      // count with the signatures of everything its givens share a cell with
+      // (no symmetry changes these signatures, only which line has which)
+      long[] rowSignatures = new long[this.size];
+      long[] columnSignatures = new long[this.size];
+      long[] digitSignatures = new long[this.size + 1];
+      long[] boxSignatures = new long[this.size];
+      for (int r = 0; r < this.size; r++) {
+         for (int c = 0; c < this.size; c++) {
+            int value = this.getValue(board, r, c);
+            if (value != 0) {
+               rowSignatures[r]++;
+               columnSignatures[c]++;
+               digitSignatures[value]++;
+               boxSignatures[(r / this.boxSize) * this.boxSize + c / this.boxSize]++;
+            }
+         }
+      }
+      for (int round = 0; round < REFINEMENT_ROUNDS; round++) {
+         long[] nextRows = new long[this.size];
+         long[] nextColumns = new long[this.size];
+         long[] nextDigits = new long[this.size + 1];
+         long[] nextBoxes = new long[this.size];
+         for (int r = 0; r < this.size; r++) {
+            for (int c = 0; c < this.size; c++) {
+               int value = this.getValue(board, r, c);
+               if (value != 0) {
+                  int box = (r / this.boxSize) * this.boxSize + c / this.boxSize;
+                  long row = mix(rowSignatures[r]);
+                  long col = mix(columnSignatures[c] + 1);
+                  long digit = mix(digitSignatures[value] + 2);
+                  long boxSignature = mix(boxSignatures[box] + 3);
+                  nextRows[r] += mix(col + mix(digit + boxSignature));
+                  nextColumns[c] += mix(row + mix(digit + boxSignature));
+                  nextDigits[value] += mix(row + col) + boxSignature;
+                  nextBoxes[box] += mix(row + col) + digit;
+               }
+            }
+         }
+         for (int i = 0; i < this.size; i++) {
+            rowSignatures[i] = mix(rowSignatures[i]) ^ nextRows[i];
+            columnSignatures[i] = mix(columnSignatures[i]) ^ nextColumns[i];
+            boxSignatures[i] = mix(boxSignatures[i]) ^ nextBoxes[i];
+            digitSignatures[i + 1] = mix(digitSignatures[i + 1]) ^ nextDigits[i + 1];
+         }
+      }
+      this.rowOrder = this.order(rowSignatures);
+      this.columnOrder = this.order(columnSignatures);
+
+      // relabel the digits in order of first appearance, then the rest
+      this.labels = new int[this.size + 1];
+      int nextLabel = 1;
+      char[] cells = new char[this.size * this.size];
+      for (int i = 0; i < this.size; i++) {
+         for (int j = 0; j < this.size; j++) {
+            int value = this.getValue(board, this.rowOrder[i], this.columnOrder[j]);
+            if (value != 0 && this.labels[value] == 0) {
+               this.labels[value] = nextLabel;
+               nextLabel++;
+            }
+            cells[i * this.size + j] = (char) this.labels[value];
+         }
+      }
+      for (int value = 1; value <= this.size; value++) {
+         if (this.labels[value] == 0) {
+            this.labels[value] = nextLabel;
+            nextLabel++;
+         }
+      }
+      this.key = new String(cells);
+   }
+
+   /**
+    * Gets a cell value of the board in this form's orientation
+    * 
+    * @param board The board
+    * @param row   The row (of the possibly transposed board)
+    * @param col   The column (of the possibly transposed board)
+    * @return The cell value (0 for an empty cell)
+    */
+   private int getValue(Board board, int row, int col) {
+      return this.isTransposed ? board.getValue(col, row) : board.getValue(row, col);
+   }
+
+   /**
+    * Orders lines by signature within each band (or stack), then the bands by
+    * the signatures of their lines, keeping tied lines in their original order
+    * 
+    * @param signatures The signature of each line
+    * @return The original line at each canonical position
+    */
+   private int[] order(long[] signatures) {
+      Integer[][] bands = new Integer[this.boxSize][this.boxSize];
+      for (int b = 0; b < this.boxSize; b++) {
+         for (int i = 0; i < this.boxSize; i++) {
+            bands[b][i] = b * this.boxSize + i;
+         }
+         Arrays.sort(bands[b], (x, y) -> Long.compare(signatures[x], signatures[y]));
+      }
+      Arrays.sort(bands, (x, y) -> {
+         for (int i = 0; i < this.boxSize; i++) {
+            int comparison = Long.compare(signatures[x[i]], signatures[y[i]]);
+            if (comparison != 0) {
+               return comparison;
+            }
+         }
+         return 0;
+      });
+
+      int[] order = new int[this.size];
+      for (int b = 0; b < this.boxSize; b++) {
+         for (int i = 0; i < this.boxSize; i++) {
+            order[b * this.boxSize + i] = bands[b][i];
+         }
+      }
+      return order;
+   }
+
+   /**
+    * Spreads the bits of a signature so sums of signatures rarely collide
+    * 
+    * @param value The signature
+    * @return The mixed signature
+    */
+   private static long mix(long value) {
+      long mixed = (value + 1) * MIX;
+      return mixed ^ (mixed >>> 29);
+   }
+}
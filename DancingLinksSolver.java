@@ -0,0 +1,414 @@
+
+/**
+ * Solves Sudoku boards as exact cover problems with Dancing Links (Algorithm X)
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class DancingLinksSolver {
+   /**
+    * Borrows an idle solver for a board size from the shared pool, building a
+    * new solver and node pool only when every solver of that size is in use
+    * (the solver must be given back with release() once its results are read)
+    * 
+    * @param boardSize The size of the board's rows and columns
+    * @return A solver for the board size that no other thread is using
+    */
+   public static DancingLinksSolver borrow(int boardSize) {
+      DancingLinksSolver solver = IDLE_SOLVERS.get(boardSize).poll();
+      return solver != null ? solver : new DancingLinksSolver(boardSize);
+   }
+
+   /**
+    * Gives a borrowed solver back to the shared pool so any thread can reuse
+    * its node pool
+    */
+   public void release() {
+      IDLE_SOLVERS.get(this.size).offer(this);
+   }
+
+   /**
+    * Solves a board by filling its empty cells in place
+    * 
+    * @param board The board to solve
+    * @return true if the board was solved (otherwise, false and the board is
+    *         left unchanged)
+    */
+   public boolean solve(Board board) {
+      return this.solve(board, null);
+   }
+
+   /**
+    * Solves a board by filling its empty cells in place, stopping early if the
+    * control is cancelled
+    * 
+    * @param board   The board to solve
+    * @param control The control that can stop the search (or null)
+    * @return true if the board was solved (otherwise, false and the board is
+    *         left unchanged)
+    */
+   public boolean solve(Board board, SolveControl control) {
+      this.control = control;
+      boolean isSolved = this.run(board, 1) == 1;
+      this.control = null;
+      if (isSolved) {
+         // the cells filled by propagation are not among the selected rows
+         board.updateCells(this.board);
+         this.writeRows(board, this.size * this.size - this.givenCount);
+      }
+      this.board = null;
+      return isSolved;
+   }
+
+   /**
+    * Counts the solutions of a board, stopping as soon as the limit is reached
+    * 
+    * @param board The board (left unchanged)
+    * @param limit The largest count of interest (at least 1)
+    * @return The number of solutions, or the limit if there are at least that
+    *         many
+    */
+   public int countSolutions(Board board, int limit) {
+      int count = this.run(board, limit);
+      this.board = null;
+      return count;
+   }
+
+   /**
+    * Gets the counters of the last solve
+    * 
+    * @return The metrics of the last solve
+    */
+   public SolveMetrics getMetrics() {
+      return this.metrics;
+   }
+
+   /** The largest supported board size */
+   private static final int MAX_BOARD_SIZE = 25;
+   /** The smallest board size whose cells are filled by propagation before searching */
+   private static final int MIN_PRESOLVE_SIZE = 16;
+   /** The solvers that are not in use, indexed by board size (there are never more than were in use at once) */
+   private static final List<Queue<DancingLinksSolver>> IDLE_SOLVERS = createIdleSolvers();
+   /** The size of the board's rows and columns */
+   private int size;
+   /** The size of the board's boxes */
+   private int boxSize;
+   /** The number of constraint columns */
+   private int columnCount;
+   /** The node to the left of each node */
+   private int[] left;
+   /** The node to the right of each node */
+   private int[] right;
+   /** The node above each node */
+   private int[] up;
+   /** The node below each node */
+   private int[] down;
+   /** The column header of each node */
+   private int[] column;
+   /** The number of nodes in each column */
+   private int[] columnSizes;
+   /** The first node of the row selected for each given cell */
+   private int[] givenNodes;
+   /** The first node of the row selected at each search depth */
+   private int[] solutionNodes;
+   /** The number of given cells of the board being solved */
+   private int givenCount;
+   /** The number of solutions after which the search stops */
+   private int solutionLimit;
+   /** The number of solutions found by the current search */
+   private int solutionCount;
+   /** The board being searched, with the cells filled by propagation (null between searches, so it is not kept) */
+   private Board board;
+   /** The control that can stop the current search (or null) */
+   private SolveControl control;
+   /** The counters of the last solve */
+   private SolveMetrics metrics;
+   /** Whether the current search records flight recorder events */
+   private boolean isTracing;
+
+   /**
+    * Creates the empty queues of idle solvers
+    * 
+    * @return One queue for each board size up to MAX_BOARD_SIZE
+    */
+   private static List<Queue<DancingLinksSolver>> createIdleSolvers() {
+      List<Queue<DancingLinksSolver>> idleSolvers = new ArrayList<Queue<DancingLinksSolver>>();
+      for (int size = 0; size <= MAX_BOARD_SIZE; size++) {
+         idleSolvers.add(new ConcurrentLinkedQueue<DancingLinksSolver>());
+      }
+      return idleSolvers;
+   }
+
+   /**
+    * Creates a solver and its node pool for a board size
+    * 
+    * Node 0 is the root, nodes 1 to columnCount are the column headers (cell,
+    * row-value, column-value, and box-value constraints), and each option of
+    * placing a value in a cell owns four consecutive nodes after the headers.
+    * 
+    * @param boardSize The size of the board's rows and columns
+    */
+   private DancingLinksSolver(int boardSize) {
+      this.size = boardSize;
+      this.boxSize = (int) Math.sqrt(boardSize);
+      int cellCount = boardSize * boardSize;
+      this.columnCount = 4 * cellCount;
+      int nodeCount = this.columnCount + 1 + 4 * cellCount * boardSize;
+      this.left = new int[nodeCount];
+      this.right = new int[nodeCount];
+      this.up = new int[nodeCount];
+      this.down = new int[nodeCount];
+      this.column = new int[nodeCount];
+      this.columnSizes = new int[this.columnCount + 1];
+      this.givenNodes = new int[cellCount];
+      this.solutionNodes = new int[cellCount];
+
+      for (int i = 0; i <= this.columnCount; i++) {
+         this.left[i] = i == 0 ? this.columnCount : i - 1;
+         this.right[i] = i == this.columnCount ? 0 : i + 1;
+         this.up[i] = i;
+         this.down[i] = i;
+         this.column[i] = i;
+      }
+
+      for (int r = 0; r < boardSize; r++) {
+         for (int c = 0; c < boardSize; c++) {
+            int box = (r / this.boxSize) * this.boxSize + c / this.boxSize;
+            for (int v = 0; v < boardSize; v++) {
+               int first = this.getFirstNode(r, c, v + 1);
+               int[] columns = {
+                     1 + r * boardSize + c,
+                     1 + cellCount + r * boardSize + v,
+                     1 + 2 * cellCount + c * boardSize + v,
+                     1 + 3 * cellCount + box * boardSize + v };
+               for (int i = 0; i < 4; i++) {
+                  int node = first + i;
+                  int header = columns[i];
+                  this.left[node] = first + (i + 3) % 4;
+                  this.right[node] = first + (i + 1) % 4;
+                  this.column[node] = header;
+                  this.up[node] = this.up[header];
+                  this.down[node] = header;
+                  this.down[this.up[header]] = node;
+                  this.up[header] = node;
+                  this.columnSizes[header]++;
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * Searches for solutions of a board, leaving the board with the cells
+    * filled by propagation in this.board and the rows of the last solution
+    * found in solutionNodes
+    * 
+    * Propagation fills the cells it can determine before the search, which
+    * does not change the solutions but leaves far fewer rows to search (the
+    * bundled 25x25 puzzle is solved by propagation alone, but takes millions
+    * of search nodes without it).
+    * 
+    * @param board The board (left unchanged)
+    * @param limit The number of solutions after which to stop
+    * @return The number of solutions found (at most the limit)
+    */
+   private int run(Board board, int limit) {
+      this.metrics = new SolveMetrics();
+      this.isTracing = SolveEvent.isSearchRecorded();
+      if (board.size != this.size || !board.isConsistent()) {
+         return 0;
+      }
+      Board start = board;
+      if (this.size >= MIN_PRESOLVE_SIZE) {
+         start = new Board(board);
+         PropagationSolver presolver = new PropagationSolver(start);
+         boolean hasSolution = presolver.presolve();
+         this.metrics.add(presolver.getMetrics());
+         if (!hasSolution) {
+            return 0;
+         }
+      }
+
+      // select the rows of the given cells before searching
+      this.givenCount = 0;
+      for (int r = 0; r < this.size; r++) {
+         for (int c = 0; c < this.size; c++) {
+            int value = start.getValue(r, c);
+            if (value != 0) {
+               int node = this.getFirstNode(r, c, value);
+               this.givenNodes[this.givenCount] = node;
+               this.givenCount++;
+               int j = node;
+               do {
+                  this.cover(this.column[j]);
+                  j = this.right[j];
+               } while (j != node);
+            }
+         }
+      }
+
+      this.solutionLimit = limit;
+      this.solutionCount = 0;
+      this.board = start;
+      long searchStart = System.nanoTime();
+      this.search(0);
+      this.metrics.addSearchNanos(System.nanoTime() - searchStart);
+
+      // restore the matrix for the next solve
+      for (int i = this.givenCount - 1; i >= 0; i--) {
+         int node = this.givenNodes[i];
+         int j = this.left[node];
+         do {
+            this.uncover(this.column[j]);
+            j = this.left[j];
+         } while (j != this.left[node]);
+      }
+      return this.solutionCount;
+   }
+
+   /**
+    * Fills a board's cells from the rows selected by the search
+    * 
+    * @param target   The board to fill
+    * @param rowCount The number of selected rows to write
+    */
+   private void writeRows(Board target, int rowCount) {
+      for (int i = 0; i < rowCount; i++) {
+         int option = (this.solutionNodes[i] - this.columnCount - 1) / 4;
+         target.setValue(option / (this.size * this.size), (option / this.size) % this.size,
+               option % this.size + 1);
+      }
+   }
+
+   /**
+    * Creates a copy of the board being solved with the rows selected so far
+    * filled in
+    * 
+    * @param depth The number of rows selected
+    * @return The partial board
+    */
+   private Board createPartial(int depth) {
+      Board partial = new Board(this.board);
+      this.writeRows(partial, depth);
+      return partial;
+   }
+
+   /**
+    * Gets the first node of the option of placing a value in a cell
+    * 
+    * @param row   The row of the cell
+    * @param col   The column of the cell
+    * @param value The value (1 to size)
+    * @return The index of the option's first node
+    */
+   private int getFirstNode(int row, int col, int value) {
+      return this.columnCount + 1 + 4 * ((row * this.size + col) * this.size + value - 1);
+   }
+
+   /**
+    * Searches for sets of rows that cover every remaining column exactly once,
+    * counting each one
+    * 
+    * @param depth The number of rows selected so far
+    * @return true if the solution limit was reached or the search was
+    *         cancelled (otherwise, false)
+    */
+   private boolean search(int depth) {
+      this.metrics.countBoardVisited();
+      this.metrics.enterDepth(depth);
+      if (this.control != null) {
+         if (this.control.checkpoint(this.metrics.getBoardsVisited())) {
+            return true;
+         }
+         if (this.control.isBetterPartial(this.givenCount + depth)) {
+            this.control.offerPartial(this.createPartial(depth));
+         }
+      }
+      if (this.right[0] == 0) {
+         this.solutionCount++;
+         return this.solutionCount >= this.solutionLimit;
+      }
+
+      // branch on the column with the fewest rows
+      int chosen = this.right[0];
+      for (int c = this.right[chosen]; c != 0; c = this.right[c]) {
+         if (this.columnSizes[c] < this.columnSizes[chosen]) {
+            chosen = c;
+         }
+      }
+      if (this.columnSizes[chosen] == 0) {
+         return false;
+      }
+
+      if (this.isTracing) {
+         // the first size * size columns are the cell constraints
+         int cell = chosen <= this.size * this.size ? chosen - 1 : -1;
+         BranchEvent.emit(SolverRegistry.DANCING_LINKS, this.size, depth, cell, this.columnSizes[chosen],
+               this.metrics.getBoardsVisited());
+      }
+
+      boolean isDone = false;
+      this.metrics.openBranches(this.columnSizes[chosen]);
+      this.cover(chosen);
+      for (int r = this.down[chosen]; r != chosen && !isDone; r = this.down[r]) {
+         this.metrics.closeBranch();
+         this.solutionNodes[depth] = r - (r - this.columnCount - 1) % 4;
+         for (int j = this.right[r]; j != r; j = this.right[j]) {
+            this.cover(this.column[j]);
+         }
+         this.metrics.countGuess();
+         isDone = this.search(depth + 1);
+         if (!isDone) {
+            this.metrics.countBacktrack();
+            if (this.isTracing) {
+               BacktrackEvent.emit(SolverRegistry.DANCING_LINKS, this.size, depth, this.metrics.getBoardsVisited());
+            }
+         }
+         for (int j = this.left[r]; j != r; j = this.left[j]) {
+            this.uncover(this.column[j]);
+         }
+      }
+      this.uncover(chosen);
+      return isDone;
+   }
+
+   /**
+    * Removes a column and every row that intersects it from the matrix
+    * 
+    * @param header The column header node
+    */
+   private void cover(int header) {
+      this.right[this.left[header]] = this.right[header];
+      this.left[this.right[header]] = this.left[header];
+      for (int i = this.down[header]; i != header; i = this.down[i]) {
+         for (int j = this.right[i]; j != i; j = this.right[j]) {
+            this.down[this.up[j]] = this.down[j];
+            this.up[this.down[j]] = this.up[j];
+            this.columnSizes[this.column[j]]--;
+         }
+      }
+   }
+
+   /**
+    * Restores a column and every row that intersects it to the matrix
+    * 
+    * @param header The column header node
+    */
+   private void uncover(int header) {
+      for (int i = this.up[header]; i != header; i = this.up[i]) {
+         for (int j = this.left[i]; j != i; j = this.left[j]) {
+            this.columnSizes[this.column[j]]++;
+            this.down[this.up[j]] = j;
+            this.up[this.down[j]] = j;
+         }
+      }
+      this.right[this.left[header]] = header;
+      this.left[this.right[header]] = header;
+   }
+}
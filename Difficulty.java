@@ -0,0 +1,16 @@
+
+/**
+ * How much reasoning a puzzle needs to be solved
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+public enum Difficulty {
+   /** Solvable with naked and hidden singles alone */
+   EASY,
+   /** Needs pairs or box-line intersections, but no guessing */
+   MEDIUM,
+   /** Needs guessing */
+   HARD
+}
@@ -0,0 +1,170 @@
+
+/**
+ * Reads puzzles one at a time from a text file with one puzzle per line (like
+ * 81 characters for a 9x9 board), through a fixed-size buffer so files of any
+ * length can be read with bounded memory
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+public class LinePuzzleReader implements AutoCloseable {
+   /**
+    * Opens a puzzle file for reading
+    * 
+    * @param file The file with one puzzle per line
+    * @throws IOException if the file cannot be opened
+    */
+   public LinePuzzleReader(File file) throws IOException {
+      this(FileChannel.open(file.toPath(), StandardOpenOption.READ));
+   }
+
+   /**
+    * Creates a reader of puzzles from a channel, like a pipe from another
+    * program
+    * 
+    * @param channel The channel with one puzzle per line (closed with the
+    *                reader)
+    */
+   public LinePuzzleReader(ReadableByteChannel channel) {
+      this.channel = channel;
+      this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+      this.buffer.flip();
+      this.symbols = new byte[MAX_BOARD_SIZE * MAX_BOARD_SIZE];
+   }
+
+   /**
+    * Reads the next puzzle, skipping blank lines and separator characters (the
+    * board size is the square root of the number of cells on the line, and
+    * symbols are mapped as in puzzle files)
+    * 
+    * @return The board described by the next puzzle line, or null if there are
+    *         no more puzzles
+    * @throws IOException              if the file cannot be read
+    * @throws IllegalArgumentException if the line does not describe a square
+    *                                  board (the reader moves past it, so
+    *                                  reading can continue)
+    */
+   public Board next() throws IOException {
+      while (!this.isFinished) {
+         PuzzleParseEvent event = new PuzzleParseEvent();
+         event.begin();
+         int symbolCount = this.readLine();
+         if (symbolCount > 0) {
+            Board board = null;
+            try {
+               board = this.decode(symbolCount);
+               return board;
+            } finally {
+               event.finish(LINE_SOURCE, this.lineNumber, board);
+            }
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Gets the line number of the last line read
+    * 
+    * @return The line number (counting from 1, or 0 before the first read)
+    */
+   public long getLineNumber() {
+      return this.lineNumber;
+   }
+
+   /**
+    * Closes the file
+    * 
+    * @throws IOException if the file cannot be closed
+    */
+   @Override
+   public void close() throws IOException {
+      this.channel.close();
+   }
+
+   /** The size of the read buffer in bytes */
+   private static final int BUFFER_SIZE = 1 << 16;
+   /** The source recorded for puzzles read by a line reader */
+   private static final String LINE_SOURCE = "lines";
+   /** The largest supported board size */
+   private static final int MAX_BOARD_SIZE = 25;
+   /** The file or stream being read */
+   private ReadableByteChannel channel;
+   /** The bytes read from the file but not yet parsed */
+   private ByteBuffer buffer;
+   /** The cell symbols of the current line */
+   private byte[] symbols;
+   /** The line number of the last line read */
+   private long lineNumber;
+   /** Whether the end of the file has been reached */
+   private boolean isFinished;
+
+   /**
+    * Reads the cell symbols of the next line into the symbol buffer, refilling
+    * the read buffer as needed
+    * 
+    * @return The number of cell symbols on the line (which can be more than the
+    *         symbol buffer holds)
+    * @throws IOException if the file cannot be read
+    */
+   private int readLine() throws IOException {
+      int symbolCount = 0;
+      while (true) {
+         if (!this.buffer.hasRemaining()) {
+            this.buffer.clear();
+            int bytesRead = this.channel.read(this.buffer);
+            this.buffer.flip();
+            if (bytesRead == -1) {
+               this.isFinished = true;
+               break;
+            }
+         }
+         byte symbol = this.buffer.get();
+         if (symbol == '\n') {
+            break;
+         }
+         if (Board.isCellSymbol((char) symbol)) {
+            if (symbolCount < this.symbols.length) {
+               this.symbols[symbolCount] = symbol;
+            }
+            symbolCount++;
+         }
+      }
+      if (symbolCount > 0 || !this.isFinished) {
+         this.lineNumber++;
+      }
+      return symbolCount;
+   }
+
+   /**
+    * Creates a board from the cell symbols of the current line
+    * 
+    * @param symbolCount The number of cell symbols on the line
+    * @return The board described by the line
+    * @throws IllegalArgumentException if the symbols do not describe a square
+    *                                  board
+    */
+   private Board decode(int symbolCount) {
+      int boardSize = (int) Math.round(Math.sqrt(symbolCount));
+      int boxSize = (int) Math.round(Math.sqrt(boardSize));
+      if (boardSize * boardSize != symbolCount || boxSize * boxSize != boardSize || boardSize > MAX_BOARD_SIZE) {
+         throw new IllegalArgumentException(
+               "Line " + this.lineNumber + " has " + symbolCount + " cells, which is not a supported board");
+      }
+      Board board = new Board(boardSize);
+      for (int i = 0; i < symbolCount; i++) {
+         int value = Board.toValue(Board.convertSymbol((char) this.symbols[i], boardSize));
+         if (value != 0 && value <= boardSize) {
+            board.setValue(i / boardSize, i % boardSize, value);
+         }
+      }
+      return board;
+   }
+}
@@ -0,0 +1,232 @@
+
+/**
+ * Solves Sudoku boards by splitting the top levels of the search tree into
+ * fork/join tasks that run on all available cores
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ParallelSolver {
+   /**
+    * Creates a solver for a board that runs on the common fork/join pool
+    * 
+    * @param board The board to solve
+    */
+   public ParallelSolver(Board board) {
+      this(board, ForkJoinPool.commonPool());
+   }
+
+   /**
+    * Creates a solver for a board that runs on a specific fork/join pool
+    * 
+    * @param board The board to solve
+    * @param pool  The pool that runs the search tasks
+    */
+   public ParallelSolver(Board board, ForkJoinPool pool) {
+      this.board = board;
+      this.pool = pool;
+      this.solution = new AtomicReference<Board>();
+   }
+
+   /**
+    * Sets a control that can stop the search from another thread (the solver
+    * stops its tasks through a child of it, so a solution never cancels it)
+    * 
+    * @param control The solve control
+    */
+   public void setControl(SolveControl control) {
+      this.externalControl = control;
+   }
+
+   /**
+    * Solves the board in place, stopping every other task as soon as one task
+    * finds a solution
+    * 
+    * @return true if the board was solved (otherwise, false and the board is
+    *         left unchanged)
+    */
+   public boolean solve() {
+      this.metrics = new SolveMetrics();
+      if (!this.board.isConsistent()) {
+         return false;
+      }
+      this.control = this.externalControl != null ? this.externalControl.createChild() : new SolveControl();
+      this.solution.set(null);
+      this.metrics.openBranches(1);
+      this.callingThread = Thread.currentThread();
+      long searchStart = System.nanoTime();
+      this.pool.invoke(new SearchTask(new Board(this.board), 0));
+      this.metrics.addSearchNanos(System.nanoTime() - searchStart);
+      Board found = this.solution.get();
+      if (found == null) {
+         return false;
+      }
+      this.board.updateCells(found);
+      return true;
+   }
+
+   /**
+    * Gets the counters of the last solve, added up across every task
+    * 
+    * @return The metrics of the last solve
+    */
+   public SolveMetrics getMetrics() {
+      return this.metrics;
+   }
+
+   /** The number of search levels that are split into separate tasks */
+   private static final int SPLIT_DEPTH = 4;
+   /** The board being solved */
+   private Board board;
+   /** The pool that runs the search tasks */
+   private ForkJoinPool pool;
+   /** The first solution found by any task */
+   private AtomicReference<Board> solution;
+   /** The control that stops the remaining tasks once a solution is found */
+   private SolveControl control;
+   /** The control set from outside the solver (or null) */
+   private SolveControl externalControl;
+   /** The counters of the last solve, shared by every task */
+   private SolveMetrics metrics;
+   /** The thread that started the last solve */
+   private Thread callingThread;
+
+   /**
+    * Records a solution and cancels the remaining tasks, unless another task
+    * already found one
+    * 
+    * @param solvedBoard The solved board
+    */
+   private void publish(Board solvedBoard) {
+      if (this.solution.compareAndSet(null, solvedBoard)) {
+         this.control.cancel();
+      }
+   }
+
+   /**
+    * Adds the counters of one task's work to the solve's metrics
+    * 
+    * @param taskMetrics The counters of the task
+    * @param depth       The number of guesses above the task's subtree
+    * @param branches    The number of subtasks the task created
+    */
+   private synchronized void addMetrics(SolveMetrics taskMetrics, int depth, int branches) {
+      this.metrics.add(taskMetrics);
+      this.metrics.enterDepth(depth + taskMetrics.getPeakDepth());
+      this.metrics.closeBranch();
+      this.metrics.openBranches(branches);
+   }
+
+   /**
+    * A task that searches the subtree below one partially filled board
+    */
+   private class SearchTask extends RecursiveAction {
+      /**
+       * Creates a task for a subtree
+       * 
+       * @param board The partially filled board at the root of the subtree
+       *              (owned by the task)
+       * @param depth The number of splits above this task
+       */
+      public SearchTask(Board board, int depth) {
+         this.board = board;
+         this.depth = depth;
+      }
+
+      @Override
+      protected void compute() {
+         // the calling thread's allocations are measured by the caller
+         boolean isWorker = Thread.currentThread() != callingThread;
+         long allocationStart = isWorker ? SolveMetrics.getThreadAllocatedBytes() : -1;
+         List<SearchTask> subtasks = new ArrayList<SearchTask>();
+         SolveMetrics taskMetrics = this.search(subtasks);
+         if (allocationStart >= 0) {
+            taskMetrics.addAllocatedBytes(SolveMetrics.getThreadAllocatedBytes() - allocationStart);
+         }
+         addMetrics(taskMetrics, this.depth, subtasks.size());
+         invokeAll(subtasks);
+      }
+
+      /**
+       * Searches the subtree on this thread if it is deep enough, or splits it
+       * into subtasks
+       * 
+       * @param subtasks The list to add the subtasks to
+       * @return The counters of the work done
+       */
+      private SolveMetrics search(List<SearchTask> subtasks) {
+         if (control.isCancelled()) {
+            return new SolveMetrics();
+         }
+         if (this.depth >= SPLIT_DEPTH) {
+            // deep enough: search the rest of the subtree on this thread
+            PropagationSolver solver = new PropagationSolver(this.board);
+            solver.setControl(control);
+            if (solver.solve()) {
+               publish(this.board);
+            }
+            return solver.getMetrics();
+         }
+
+         PropagationSolver presolver = new PropagationSolver(this.board);
+         if (!presolver.presolve()) {
+            return presolver.getMetrics();
+         }
+         SolveMetrics taskMetrics = presolver.getMetrics();
+         taskMetrics.countBoardVisited();
+         if (control.isBetterPartial(this.board.getFilledCount())) {
+            control.offerPartial(new Board(this.board));
+         }
+
+         // split on the empty cell with the fewest candidates
+         int bestRow = -1;
+         int bestCol = -1;
+         int bestCount = Integer.MAX_VALUE;
+         for (int r = 0; r < this.board.size; r++) {
+            for (int c = 0; c < this.board.size; c++) {
+               if (this.board.getValue(r, c) == 0) {
+                  int count = Integer.bitCount(this.board.getCandidates(r, c));
+                  if (count < bestCount) {
+                     bestRow = r;
+                     bestCol = c;
+                     bestCount = count;
+                  }
+               }
+            }
+         }
+         if (bestRow == -1) {
+            publish(this.board);
+            return taskMetrics;
+         }
+
+         int candidates = this.board.getCandidates(bestRow, bestCol);
+         if (SolveEvent.isSearchRecorded()) {
+            BranchEvent.emit(SolverRegistry.PARALLEL, this.board.size, this.depth,
+                  bestRow * this.board.size + bestCol, bestCount, taskMetrics.getBoardsVisited());
+         }
+         while (candidates != 0) {
+            int bit = candidates & -candidates;
+            candidates ^= bit;
+            Board child = new Board(this.board);
+            child.setValue(bestRow, bestCol, Integer.numberOfTrailingZeros(bit) + 1);
+            subtasks.add(new SearchTask(child, this.depth + 1));
+            taskMetrics.countGuess();
+         }
+         return taskMetrics;
+      }
+
+      /** The version of the serialized form */
+      private static final long serialVersionUID = 1L;
+      /** The partially filled board at the root of the subtree */
+      private Board board;
+      /** The number of splits above this task */
+      private int depth;
+   }
+}
@@ -0,0 +1,283 @@
+
+/**
+ * Races several engines on copies of the same board, one thread each, and
+ * keeps the first verified answer, cancelling the other engines
+ * 
+ * How long a puzzle takes varies a lot from engine to engine, so racing them
+ * takes about as long as the best engine for each puzzle. The portfolio counts
+ * the races each engine wins for each board size, and once it has run enough
+ * races on a size, it stops starting engines that have never won on it.
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class PortfolioSolver {
+   /**
+    * Creates a portfolio of engines
+    * 
+    * @param engineNames The names of the registered engines to race
+    */
+   public PortfolioSolver(List<String> engineNames) {
+      this.engineNames = new ArrayList<String>(engineNames);
+      this.raceCounts = new AtomicLongArray(MAX_BOARD_SIZE + 1);
+      this.winCounts = new AtomicLongArray((MAX_BOARD_SIZE + 1) * this.engineNames.size());
+   }
+
+   /**
+    * Solves a board in place with the first engine that finds a verified
+    * solution or proves that there is none, then waits for the cancelled
+    * engines to stop
+    * 
+    * @param board   The board to solve
+    * @param control The control that can stop every engine of the race
+    * @return The result of the race (its metrics add up the work of every
+    *         engine, and its search time is the time the race took)
+    */
+   public SolveResult solve(Board board, SolveControl control) {
+      List<Integer> entrants = this.getEntrants(board.size);
+      List<SolveControl> controls = new ArrayList<SolveControl>();
+      CompletionService<Entry> race = new ExecutorCompletionService<Entry>(RacerHolder.RACERS);
+      long raceStart = System.nanoTime();
+      for (int engine : entrants) {
+         Entry entry = new Entry(engine, new Board(board), control.createChild());
+         controls.add(entry.control);
+         SolverStrategy strategy = SolverRegistry.get(this.engineNames.get(engine), board.size);
+         race.submit(() -> {
+            entry.result = strategy.solve(entry.board, entry.control);
+            return entry;
+         });
+      }
+
+      SolveMetrics metrics = new SolveMetrics();
+      Entry winner = null;
+      boolean isInterrupted = false;
+      for (int finished = 0; finished < entrants.size(); finished++) {
+         Entry entry;
+         try {
+            entry = race.take().get();
+         } catch (InterruptedException e) {
+            // stop every engine, but keep waiting so none outlives the solve
+            isInterrupted = true;
+            control.cancel();
+            finished--;
+            continue;
+         } catch (ExecutionException e) {
+            System.err.println("Error in portfolio engine: " + e.getCause());
+            continue;
+         }
+         metrics.add(entry.result.getMetrics());
+         if (winner == null && this.isAnswer(entry, board)) {
+            winner = entry;
+            metrics.addSearchNanos(System.nanoTime() - raceStart);
+            for (SolveControl other : controls) {
+               other.cancel();
+            }
+         }
+      }
+      if (isInterrupted) {
+         Thread.currentThread().interrupt();
+      }
+
+      if (winner == null) {
+         return SolveResult.of(false, control, metrics);
+      }
+      this.raceCounts.incrementAndGet(board.size);
+      this.winCounts.incrementAndGet(this.getWinIndex(board.size, winner.engine));
+      if (winner.result.isSolved()) {
+         board.updateCells(winner.board);
+      }
+      return new SolveResult(winner.result.getStatus(), metrics);
+   }
+
+   /**
+    * Gets the number of races with a winner on a board size
+    * 
+    * @param boardSize The size of the boards
+    * @return The number of races
+    */
+   public long getRaceCount(int boardSize) {
+      return this.raceCounts.get(boardSize);
+   }
+
+   /**
+    * Gets the number of races an engine won on a board size
+    * 
+    * @param boardSize  The size of the boards
+    * @param engineName The name of the engine
+    * @return The number of wins (0 if the engine is not in the portfolio)
+    */
+   public long getWinCount(int boardSize, String engineName) {
+      int engine = this.engineNames.indexOf(engineName);
+      return engine == -1 ? 0 : this.winCounts.get(this.getWinIndex(boardSize, engine));
+   }
+
+   /**
+    * Checks if an engine has stopped being raced on a board size because it
+    * never won there
+    * 
+    * @param boardSize  The size of the boards
+    * @param engineName The name of the engine
+    * @return true if the engine is dropped for the size (otherwise, false)
+    */
+   public boolean isDropped(int boardSize, String engineName) {
+      return this.getRaceCount(boardSize) >= MIN_RACES_BEFORE_DROP && this.getWinCount(boardSize, engineName) == 0;
+   }
+
+   /**
+    * Forgets the races run so far, so every engine is raced again
+    */
+   public void reset() {
+      for (int i = 0; i < this.raceCounts.length(); i++) {
+         this.raceCounts.set(i, 0);
+      }
+      for (int i = 0; i < this.winCounts.length(); i++) {
+         this.winCounts.set(i, 0);
+      }
+   }
+
+   @Override
+   public String toString() {
+      StringBuilder summary = new StringBuilder("Portfolio wins:");
+      boolean hasRaces = false;
+      for (int size = 1; size <= MAX_BOARD_SIZE; size++) {
+         if (this.getRaceCount(size) == 0) {
+            continue;
+         }
+         hasRaces = true;
+         summary.append(String.format("%n  %dx%d (%d races):", size, size, this.getRaceCount(size)));
+         for (String name : this.engineNames) {
+            summary.append(' ').append(name).append(' ').append(this.getWinCount(size, name));
+            if (this.isDropped(size, name)) {
+               summary.append(" (dropped)");
+            }
+         }
+      }
+      return hasRaces ? summary.toString() : summary.append(" no races won yet").toString();
+   }
+
+   /** The largest supported board size */
+   private static final int MAX_BOARD_SIZE = 25;
+   /** The number of races on a board size before engines that never won on it are dropped */
+   private static final int MIN_RACES_BEFORE_DROP = 32;
+   /** The names of the engines in the portfolio */
+   private List<String> engineNames;
+   /** The number of races with a winner on each board size */
+   private AtomicLongArray raceCounts;
+   /** The number of wins of each engine on each board size */
+   private AtomicLongArray winCounts;
+
+   /**
+    * Gets the engines to race on a board size
+    * 
+    * @param boardSize The size of the board
+    * @return The indexes of the engines that have not been dropped for the size
+    */
+   private List<Integer> getEntrants(int boardSize) {
+      List<Integer> entrants = new ArrayList<Integer>();
+      for (int engine = 0; engine < this.engineNames.size(); engine++) {
+         if (!this.isDropped(boardSize, this.engineNames.get(engine))) {
+            entrants.add(engine);
+         }
+      }
+      return entrants;
+   }
+
+   /**
+    * Checks if an engine finished the race with an answer, which is a valid
+    * solution that keeps the board's givens or a search that proved there is
+    * no solution
+    * 
+    * @param entry The engine's run
+    * @param board The board being solved
+    * @return true if the run's result can be returned (otherwise, false)
+    */
+   private boolean isAnswer(Entry entry, Board board) {
+      if (entry.result.getStatus() == SolveStatus.NO_SOLUTION) {
+         return true;
+      }
+      if (!entry.result.isSolved() || !entry.board.isValid()) {
+         return false;
+      }
+      for (int r = 0; r < board.size; r++) {
+         for (int c = 0; c < board.size; c++) {
+            int value = board.getValue(r, c);
+            if (value != 0 && value != entry.board.getValue(r, c)) {
+               return false;
+            }
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Gets the index of an engine's win count on a board size
+    * 
+    * @param boardSize The size of the boards
+    * @param engine    The index of the engine
+    * @return The index in winCounts
+    */
+   private int getWinIndex(int boardSize, int engine) {
+      return boardSize * this.engineNames.size() + engine;
+   }
+
+   /**
+    * One engine's run in a race
+    */
+   private static class Entry {
+      /**
+       * Creates a run
+       * 
+       * @param engine  The index of the engine
+       * @param board   The engine's copy of the board
+       * @param control The engine's control
+       */
+      public Entry(int engine, Board board, SolveControl control) {
+         this.engine = engine;
+         this.board = board;
+         this.control = control;
+      }
+
+      /** The index of the engine */
+      private int engine;
+      /** The engine's copy of the board */
+      private Board board;
+      /** The engine's control, cancelled when another engine wins */
+      private SolveControl control;
+      /** The result of the engine's solve (set by the racing thread) */
+      private SolveResult result;
+   }
+
+   /**
+    * Creates the racing threads the first time a portfolio is used
+    */
+   private static class RacerHolder {
+      /** The daemon threads that run the engines of every race */
+      private static final ExecutorService RACERS = createRacers();
+
+      /**
+       * Creates the racing threads, which grow with the number of engines
+       * racing at once and end after a minute without work
+       * 
+       * @return The executor of the racing threads
+       */
+      private static ExecutorService createRacers() {
+         AtomicInteger threadCount = new AtomicInteger();
+         return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "portfolio-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+         });
+      }
+   }
+}
@@ -0,0 +1,66 @@
+
+/**
+ * A JDK Flight Recorder event for constraint propagation run to a fixed point
+ * at one search node
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("sudoku.Propagation")
+@Label("Propagation")
+@Category({ "Sudoku", "Search" })
+@Description("Constraint propagation run until nothing changes or a contradiction is found")
+@StackTrace(false)
+public class PropagationEvent extends Event {
+   /**
+    * Checks if propagation events are being recorded
+    * 
+    * @return true if the event is enabled in a running recording (otherwise,
+    *         false)
+    */
+   public static boolean isRecording() {
+      return new PropagationEvent().isEnabled();
+   }
+
+   /**
+    * Records the propagation, if the event is enabled and lasted longer than
+    * the recording's threshold
+    * 
+    * @param boardSize       The size of the board's rows and columns
+    * @param depth           The number of guesses above the search node
+    * @param rounds          The number of propagation rounds run
+    * @param isContradiction Whether propagation found that the node has no
+    *                        solution
+    */
+   public void finish(int boardSize, int depth, long rounds, boolean isContradiction) {
+      this.end();
+      if (this.shouldCommit()) {
+         this.boardSize = boardSize;
+         this.depth = depth;
+         this.rounds = rounds;
+         this.isContradiction = isContradiction;
+         this.commit();
+      }
+   }
+
+   /** The size of the board's rows and columns */
+   @Label("Board Size")
+   private int boardSize;
+   /** The number of guesses above the search node */
+   @Label("Depth")
+   private int depth;
+   /** The number of propagation rounds run */
+   @Label("Rounds")
+   private long rounds;
+   /** Whether propagation found that the node has no solution */
+   @Label("Contradiction")
+   private boolean isContradiction;
+}
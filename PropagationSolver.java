@@ -0,0 +1,715 @@
+
+/**
+ * Solves Sudoku boards with constraint propagation, searching only when
+ * propagation alone cannot finish the board
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class PropagationSolver {
+   /**
+    * Creates a solver for a board
+    * 
+    * @param board The board to solve
+    */
+   public PropagationSolver(Board board) {
+      this.board = board;
+      this.size = board.size;
+      int cellCount = board.size * board.size;
+      Layout layout = getLayout(board);
+      this.units = layout.units;
+      this.cellUnits = layout.cellUnits;
+      this.peers = layout.peers;
+      this.values = new int[cellCount];
+      this.candidates = new int[cellCount];
+      this.savedStates = new int[cellCount + 1][];
+      this.orderedValues = new int[cellCount + 1][];
+      this.places = new int[board.size];
+   }
+
+   /**
+    * Fills every cell that propagation alone can determine, without guessing
+    * 
+    * @return false if propagation found that the board has no solution
+    *         (otherwise, true)
+    */
+   public boolean presolve() {
+      this.metrics = new SolveMetrics();
+      this.isTracing = SolveEvent.isSearchRecorded();
+      this.isKeepingPartial = this.control != null && this.control.hasLimit();
+      if (!this.initialize() || !this.propagate(0)) {
+         return false;
+      }
+      this.writeValues(this.board);
+      return true;
+   }
+
+   /**
+    * Solves the board in place, propagating constraints before searching and
+    * after every guess
+    * 
+    * @return true if the board was solved (otherwise, false and the board is
+    *         left unchanged, including when the search was cancelled)
+    */
+   public boolean solve() {
+      this.metrics = new SolveMetrics();
+      this.isTracing = SolveEvent.isSearchRecorded();
+      this.isKeepingPartial = this.control != null && this.control.hasLimit();
+      this.solutionLimit = 1;
+      this.solutionCount = 0;
+      boolean isSolved = this.initialize() && this.timeSearch();
+      if (isSolved) {
+         this.writeValues(this.board);
+      }
+      return isSolved;
+   }
+
+   /**
+    * Solves the board in place like solve(), but breaks ties between the cells
+    * with the fewest candidates and orders values at random, restarting the
+    * search from the root in a new random order whenever an attempt visits more
+    * nodes than its cutoff (the cutoffs follow the Luby sequence, so attempts
+    * that are long enough to finish any search keep coming)
+    * 
+    * @param random The source of the random choices
+    * @return true if the board was solved (otherwise, false and the board is
+    *         left unchanged, including when the search was cancelled)
+    */
+   public boolean solveWithRestarts(Random random) {
+      this.metrics = new SolveMetrics();
+      this.isTracing = SolveEvent.isSearchRecorded();
+      this.isKeepingPartial = this.control != null && this.control.hasLimit();
+      this.solutionLimit = 1;
+      this.solutionCount = 0;
+      this.random = random;
+      boolean isSolved = false;
+      for (int attempt = 1; this.initialize(); attempt++) {
+         this.nodeCutoff = this.metrics.getBoardsVisited() + RESTART_NODES * getLubyTerm(attempt);
+         this.isCutOff = false;
+         isSolved = this.timeSearch();
+         if (isSolved || !this.isCutOff || (this.control != null && this.control.isCancelled())) {
+            break;
+         }
+      }
+      this.random = null;
+      this.nodeCutoff = Long.MAX_VALUE;
+      if (isSolved) {
+         this.writeValues(this.board);
+      }
+      return isSolved;
+   }
+
+   /**
+    * Counts the solutions of the board, stopping as soon as the limit is
+    * reached
+    * 
+    * @param limit The largest count of interest (at least 1)
+    * @return The number of solutions, or the limit if there are at least that
+    *         many (the board is left unchanged)
+    */
+   public int countSolutions(int limit) {
+      this.metrics = new SolveMetrics();
+      this.isTracing = SolveEvent.isSearchRecorded();
+      this.isKeepingPartial = this.control != null && this.control.hasLimit();
+      this.solutionLimit = limit;
+      this.solutionCount = 0;
+      if (this.initialize()) {
+         this.timeSearch();
+      }
+      return this.solutionCount;
+   }
+
+   /**
+    * Sets the control that can stop this solver's searches from another thread
+    * 
+    * @param control The solve control
+    */
+   public void setControl(SolveControl control) {
+      this.control = control;
+   }
+
+   /**
+    * Gets the counters of the last solve
+    * 
+    * @return The metrics of the last solve
+    */
+   public SolveMetrics getMetrics() {
+      return this.metrics;
+   }
+
+   /** The largest supported board size */
+   private static final int MAX_BOARD_SIZE = 25;
+   /** The unit and peer layout of each board size, built the first time it is needed */
+   private static final Layout[] LAYOUTS = new Layout[MAX_BOARD_SIZE + 1];
+   /** The number of search nodes the first attempt of a restarting search can visit */
+   private static final long RESTART_NODES = 32;
+   /** The board being solved */
+   private Board board;
+   /** The size of the board's rows and columns */
+   private int size;
+   /** The cell indexes of every row, column, and box */
+   private int[][] units;
+   /** The indexes of the row, column, and box units of each cell */
+   private int[][] cellUnits;
+   /** The value of each cell (0 for an unassigned cell) */
+   private int[] values;
+   /** The bitmask of values each cell can still hold (bit v - 1 for value v) */
+   private int[] candidates;
+   /** The other cells that share a row, column, or box with each cell */
+   private int[][] peers;
+   /** The values and candidates saved before the guess at each search depth */
+   private int[][] savedStates;
+   /** The order in which values are guessed at each search depth */
+   private int[][] orderedValues;
+   /** The positions within a unit that can hold each value */
+   private int[] places;
+   /** The number of solutions after which the search stops */
+   private int solutionLimit;
+   /** The number of solutions found by the current search */
+   private int solutionCount;
+   /** Whether the current propagation round changed any candidates */
+   private boolean changed;
+   /** Whether the current search records flight recorder events */
+   private boolean isTracing;
+   /** Whether the current search offers partial boards to its control */
+   private boolean isKeepingPartial;
+   /** The source of random choices of a restarting search (or null) */
+   private Random random;
+   /** The number of visited search nodes at which the current attempt stops */
+   private long nodeCutoff = Long.MAX_VALUE;
+   /** Whether the current attempt stopped at its node cutoff */
+   private boolean isCutOff;
+   /** The control that can stop the search from another thread */
+   private SolveControl control;
+   /** The counters of the last solve */
+   private SolveMetrics metrics;
+
+   /**
+    * Gets the unit and peer layout of a board's size, building it the first
+    * time it is needed (layouts never change, so threads that build the same
+    * one at once are harmless)
+    * 
+    * @param board A board of the size
+    * @return The layout of the board's size
+    */
+   private static Layout getLayout(Board board) {
+      Layout layout = LAYOUTS[board.size];
+      if (layout == null) {
+         layout = new Layout(board);
+         LAYOUTS[board.size] = layout;
+      }
+      return layout;
+   }
+
+   /**
+    * Gets a term of the Luby sequence (1, 1, 2, 1, 1, 2, 4, 1, 1, 2, ...),
+    * whose restart cutoffs are within a log factor of the best fixed cutoff
+    * 
+    * @param index The index of the term (counting from 1)
+    * @return The term
+    */
+   private static long getLubyTerm(int index) {
+      int k = 1;
+      while ((1L << k) - 1 < index) {
+         k++;
+      }
+      if ((1L << k) - 1 == index) {
+         return 1L << (k - 1);
+      }
+      return getLubyTerm(index - (1 << (k - 1)) + 1);
+   }
+
+   /**
+    * Loads the board's cells and assigns its given values
+    * 
+    * @return false if the given values conflict (otherwise, true)
+    */
+   private boolean initialize() {
+      Arrays.fill(this.values, 0);
+      Arrays.fill(this.candidates, (1 << this.size) - 1);
+      for (int cell = 0; cell < this.values.length; cell++) {
+         int value = this.board.getValue(cell / this.size, cell % this.size);
+         if (value != 0 && !this.assign(cell, value)) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Copies the assigned values to a board
+    * 
+    * @param target The board to fill (the board being solved, or a copy of it)
+    */
+   private void writeValues(Board target) {
+      for (int cell = 0; cell < this.values.length; cell++) {
+         if (this.values[cell] != 0) {
+            target.setValue(cell / this.size, cell % this.size, this.values[cell]);
+         }
+      }
+   }
+
+   /**
+    * Offers the assigned values to the control as a partial board, if they
+    * fill more cells than the best partial board so far
+    */
+   private void offerPartial() {
+      int filledCount = 0;
+      for (int value : this.values) {
+         if (value != 0) {
+            filledCount++;
+         }
+      }
+      if (this.control.isBetterPartial(filledCount)) {
+         Board partial = new Board(this.board);
+         this.writeValues(partial);
+         this.control.offerPartial(partial);
+      }
+   }
+
+   /**
+    * Runs the search from the root, recording the time it takes
+    * 
+    * @return true if the solution limit was reached (otherwise, false)
+    */
+   private boolean timeSearch() {
+      long searchStart = System.nanoTime();
+      boolean isDone = this.search(0);
+      this.metrics.addSearchNanos(System.nanoTime() - searchStart);
+      return isDone;
+   }
+
+   /**
+    * Searches for a solution, guessing on the unassigned cell with the fewest
+    * candidates when propagation gets stuck and trying its values in ascending
+    * order
+    * 
+    * @param depth The number of guesses made so far
+    * @return true if the solution limit was reached, leaving the last solution
+    *         in the values (otherwise, false)
+    */
+   private boolean search(int depth) {
+      this.metrics.countBoardVisited();
+      this.metrics.enterDepth(depth);
+      if (this.metrics.getBoardsVisited() > this.nodeCutoff) {
+         this.isCutOff = true;
+         return false;
+      }
+      if ((this.control != null && this.control.checkpoint(this.metrics.getBoardsVisited()))
+            || !this.propagate(depth)) {
+         return false;
+      }
+      if (this.isKeepingPartial) {
+         this.offerPartial();
+      }
+
+      // minimum remaining values: pick the unassigned cell with the fewest
+      // candidates (a restarting search picks among the ties at random);
+      // propagation leaves no cell with a single candidate, so two is the best
+      int cell = -1;
+      int fewestOptions = Integer.MAX_VALUE;
+      int tieCount = 0;
+      for (int i = 0; i < this.values.length && (fewestOptions > 2 || this.random != null); i++) {
+         if (this.values[i] == 0) {
+            int optionCount = Integer.bitCount(this.candidates[i]);
+            if (optionCount < fewestOptions) {
+               cell = i;
+               fewestOptions = optionCount;
+               tieCount = 1;
+            } else if (optionCount == fewestOptions && this.random != null) {
+               tieCount++;
+               if (this.random.nextInt(tieCount) == 0) {
+                  cell = i;
+               }
+            }
+         }
+      }
+      if (cell == -1) {
+         this.solutionCount++;
+         return this.solutionCount >= this.solutionLimit;
+      }
+
+      if (this.savedStates[depth] == null) {
+         this.savedStates[depth] = new int[2 * this.values.length];
+         this.orderedValues[depth] = new int[this.size];
+      }
+      int[] savedState = this.savedStates[depth];
+      System.arraycopy(this.values, 0, savedState, 0, this.values.length);
+      System.arraycopy(this.candidates, 0, savedState, this.values.length, this.values.length);
+
+      int[] order = this.orderedValues[depth];
+      int optionCount = 0;
+      for (int options = this.candidates[cell]; options != 0; options &= options - 1) {
+         order[optionCount] = Integer.numberOfTrailingZeros(options) + 1;
+         optionCount++;
+      }
+      if (this.random != null) {
+         for (int i = optionCount - 1; i > 0; i--) {
+            int j = this.random.nextInt(i + 1);
+            int value = order[i];
+            order[i] = order[j];
+            order[j] = value;
+         }
+      }
+      if (this.isTracing) {
+         BranchEvent.emit(SolverRegistry.PROPAGATION, this.size, depth, cell, optionCount,
+               this.metrics.getBoardsVisited());
+      }
+      this.metrics.openBranches(optionCount);
+      for (int i = 0; i < optionCount; i++) {
+         this.metrics.closeBranch();
+         this.metrics.countGuess();
+         if (this.assign(cell, order[i]) && this.search(depth + 1)) {
+            return true;
+         }
+         if (this.isCutOff) {
+            // the attempt is abandoned, so there is nothing to restore
+            return false;
+         }
+         this.metrics.countBacktrack();
+         if (this.isTracing) {
+            BacktrackEvent.emit(SolverRegistry.PROPAGATION, this.size, depth, this.metrics.getBoardsVisited());
+         }
+         System.arraycopy(savedState, 0, this.values, 0, this.values.length);
+         System.arraycopy(savedState, this.values.length, this.candidates, 0, this.values.length);
+      }
+      return false;
+   }
+
+   /**
+    * Assigns a value to a cell and removes it from the candidates of the cell's
+    * row, column, and box
+    * 
+    * @param cell  The row-major index of the cell
+    * @param value The value to assign
+    * @return false if the assignment leaves some cell without candidates
+    *         (otherwise, true)
+    */
+   private boolean assign(int cell, int value) {
+      int bit = 1 << (value - 1);
+      if ((this.candidates[cell] & bit) == 0) {
+         return false;
+      }
+      this.values[cell] = value;
+      this.candidates[cell] = bit;
+      for (int peer : this.peers[cell]) {
+         if (!this.eliminate(peer, bit)) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Removes values from the candidates of a cell
+    * 
+    * @param cell The row-major index of the cell
+    * @param bits The bitmask of values to remove
+    * @return false if the cell is left without candidates (otherwise, true)
+    */
+   private boolean eliminate(int cell, int bits) {
+      if ((this.candidates[cell] & bits) == 0) {
+         return true;
+      }
+      this.candidates[cell] &= ~bits;
+      this.changed = true;
+      return this.candidates[cell] != 0;
+   }
+
+   /**
+    * Propagates constraints at a search node, recording a flight recorder event
+    * when the search is traced
+    * 
+    * @param depth The number of guesses made so far
+    * @return false if a contradiction was found (otherwise, true)
+    */
+   private boolean propagate(int depth) {
+      if (!this.isTracing) {
+         return this.propagate();
+      }
+      PropagationEvent event = new PropagationEvent();
+      event.begin();
+      long roundsBefore = this.metrics.getPropagations();
+      boolean isConsistent = this.propagate();
+      event.finish(this.size, depth, this.metrics.getPropagations() - roundsBefore, !isConsistent);
+      return isConsistent;
+   }
+
+   /**
+    * Applies naked singles, hidden singles, naked pairs, hidden pairs, pointing,
+    * and box-line reduction until none of them change anything
+    * 
+    * @return false if a contradiction was found (otherwise, true)
+    */
+   private boolean propagate() {
+      do {
+         this.metrics.countPropagation();
+         this.changed = false;
+         if (!this.applyNakedSingles() || !this.applyHiddenSingles()) {
+            return false;
+         }
+         if (!this.changed && (!this.applyNakedPairs() || !this.applyHiddenPairs()
+               || !this.applyIntersections())) {
+            return false;
+         }
+      } while (this.changed);
+      return true;
+   }
+
+   /**
+    * Assigns every unassigned cell that has only one candidate
+    * 
+    * @return false if a contradiction was found (otherwise, true)
+    */
+   private boolean applyNakedSingles() {
+      for (int cell = 0; cell < this.values.length; cell++) {
+         if (this.values[cell] == 0) {
+            int options = this.candidates[cell];
+            if (options == 0) {
+               return false;
+            }
+            if ((options & (options - 1)) == 0) {
+               this.changed = true;
+               if (!this.assign(cell, Integer.numberOfTrailingZeros(options) + 1)) {
+                  return false;
+               }
+            }
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Assigns every value that has only one possible cell in a row, column, or
+    * box
+    * 
+    * @return false if a contradiction was found (otherwise, true)
+    */
+   private boolean applyHiddenSingles() {
+      for (int[] unit : this.units) {
+         int seenOnce = 0;
+         int seenTwice = 0;
+         for (int cell : unit) {
+            seenTwice |= seenOnce & this.candidates[cell];
+            seenOnce |= this.candidates[cell];
+         }
+         if (seenOnce != (1 << this.size) - 1) {
+            // some value has nowhere left to go in this unit
+            return false;
+         }
+         int hiddenSingles = seenOnce & ~seenTwice;
+         for (int cell : unit) {
+            int single = this.candidates[cell] & hiddenSingles;
+            if (single != 0 && this.values[cell] == 0) {
+               if ((single & (single - 1)) != 0) {
+                  // one cell is the only place for two values
+                  return false;
+               }
+               this.changed = true;
+               if (!this.assign(cell, Integer.numberOfTrailingZeros(single) + 1)) {
+                  return false;
+               }
+            }
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Removes the values of two cells that share the same two candidates from
+    * the rest of their row, column, or box
+    * 
+    * @return false if a contradiction was found (otherwise, true)
+    */
+   private boolean applyNakedPairs() {
+      for (int[] unit : this.units) {
+         for (int i = 0; i < unit.length; i++) {
+            int pair = this.candidates[unit[i]];
+            if (this.values[unit[i]] != 0 || Integer.bitCount(pair) != 2) {
+               continue;
+            }
+            for (int j = i + 1; j < unit.length; j++) {
+               if (this.values[unit[j]] == 0 && this.candidates[unit[j]] == pair) {
+                  for (int k = 0; k < unit.length; k++) {
+                     if (k != i && k != j && this.values[unit[k]] == 0
+                           && !this.eliminate(unit[k], pair)) {
+                        return false;
+                     }
+                  }
+               }
+            }
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Restricts two cells to the two values that can only go in those cells of
+    * their row, column, or box
+    * 
+    * @return false if a contradiction was found (otherwise, true)
+    */
+   private boolean applyHiddenPairs() {
+      int[] places = this.places;
+      for (int[] unit : this.units) {
+         // record which positions of the unit can hold each unplaced value
+         for (int v = 0; v < this.size; v++) {
+            places[v] = 0;
+         }
+         for (int i = 0; i < unit.length; i++) {
+            if (this.values[unit[i]] == 0) {
+               int options = this.candidates[unit[i]];
+               while (options != 0) {
+                  int bit = options & -options;
+                  options ^= bit;
+                  places[Integer.numberOfTrailingZeros(bit)] |= 1 << i;
+               }
+            }
+         }
+         for (int a = 0; a < this.size; a++) {
+            if (Integer.bitCount(places[a]) != 2) {
+               continue;
+            }
+            for (int b = a + 1; b < this.size; b++) {
+               if (places[b] == places[a]) {
+                  int pair = (1 << a) | (1 << b);
+                  int positions = places[a];
+                  while (positions != 0) {
+                     int position = Integer.numberOfTrailingZeros(positions);
+                     positions &= positions - 1;
+                     if (!this.eliminate(unit[position], ~pair)) {
+                        return false;
+                     }
+                  }
+               }
+            }
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Applies pointing (a value confined to one row or column of a box is
+    * removed from the rest of that row or column) and box-line reduction (a
+    * value confined to one box within a row or column is removed from the rest
+    * of that box)
+    * 
+    * @return false if a contradiction was found (otherwise, true)
+    */
+   private boolean applyIntersections() {
+      for (int u = 0; u < this.units.length; u++) {
+         int[] unit = this.units[u];
+         int unplaced = 0;
+         for (int cell : unit) {
+            if (this.values[cell] == 0) {
+               unplaced |= this.candidates[cell];
+            }
+         }
+         while (unplaced != 0) {
+            int bit = unplaced & -unplaced;
+            unplaced ^= bit;
+
+            // check whether every place for the value shares a row, column, or box
+            int first = -1;
+            boolean isSameRow = true;
+            boolean isSameColumn = true;
+            boolean isSameBox = true;
+            for (int cell : unit) {
+               if (this.values[cell] == 0 && (this.candidates[cell] & bit) != 0) {
+                  if (first == -1) {
+                     first = cell;
+                  } else {
+                     isSameRow &= this.cellUnits[cell][0] == this.cellUnits[first][0];
+                     isSameColumn &= this.cellUnits[cell][1] == this.cellUnits[first][1];
+                     isSameBox &= this.cellUnits[cell][2] == this.cellUnits[first][2];
+                  }
+               }
+            }
+
+            int kindOfUnit = u / this.size;
+            if (kindOfUnit == 2) {
+               if ((isSameRow && !this.eliminateOutside(this.cellUnits[first][0], u, 2, bit))
+                     || (isSameColumn && !this.eliminateOutside(this.cellUnits[first][1], u, 2, bit))) {
+                  return false;
+               }
+            } else if (isSameBox && !this.eliminateOutside(this.cellUnits[first][2], u, kindOfUnit, bit)) {
+               return false;
+            }
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Removes values from the unassigned cells of one unit that are not in
+    * another unit
+    * 
+    * @param target     The index of the unit to remove the values from
+    * @param unit       The index of the unit whose cells are kept
+    * @param kindOfUnit The kind of the kept unit (0 for rows, 1 for columns, 2
+    *                   for boxes)
+    * @param bits       The bitmask of values to remove
+    * @return false if a contradiction was found (otherwise, true)
+    */
+   private boolean eliminateOutside(int target, int unit, int kindOfUnit, int bits) {
+      for (int cell : this.units[target]) {
+         if (this.cellUnits[cell][kindOfUnit] != unit && this.values[cell] == 0
+               && !this.eliminate(cell, bits)) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Which cells make up each unit and which cells each cell shares a unit with
+    * on boards of one size
+    */
+   private static class Layout {
+      /**
+       * Builds the layout of a board's size
+       * 
+       * @param board A board of the size
+       */
+      public Layout(Board board) {
+         int size = board.size;
+         int cellCount = size * size;
+         this.units = board.createUnits();
+         this.cellUnits = new int[cellCount][3];
+         for (int u = 0; u < this.units.length; u++) {
+            for (int cell : this.units[u]) {
+               this.cellUnits[cell][u / size] = u;
+            }
+         }
+         this.peers = new int[cellCount][];
+         for (int cell = 0; cell < cellCount; cell++) {
+            int[] cellPeers = new int[3 * size];
+            int peerCount = 0;
+            for (int unit : this.cellUnits[cell]) {
+               for (int peer : this.units[unit]) {
+                  boolean isNew = peer != cell;
+                  for (int i = 0; i < peerCount && isNew; i++) {
+                     isNew = cellPeers[i] != peer;
+                  }
+                  if (isNew) {
+                     cellPeers[peerCount] = peer;
+                     peerCount++;
+                  }
+               }
+            }
+            this.peers[cell] = Arrays.copyOf(cellPeers, peerCount);
+         }
+      }
+
+      /** The cell indexes of every row, column, and box */
+      private final int[][] units;
+      /** The indexes of the row, column, and box units of each cell */
+      private final int[][] cellUnits;
+      /** The other cells that share a row, column, or box with each cell */
+      private final int[][] peers;
+   }
+}
@@ -0,0 +1,236 @@
+
+/**
+ * Holds every puzzle under the puzzles directory in memory, read and parsed
+ * once, so new boards can be created without touching the disk
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class PuzzleCatalog {
+   /**
+    * Gets the catalog of the puzzles directory, reading it the first time it is
+    * needed
+    * 
+    * @return The catalog of the puzzles directory
+    */
+   public static PuzzleCatalog getDefault() {
+      return DefaultHolder.CATALOG;
+   }
+
+   /**
+    * Creates a catalog of every puzzle file in the subdirectories of a
+    * directory (unreadable or malformed files are reported and skipped)
+    * 
+    * @param directory The directory of puzzles (one subdirectory per board
+    *                  size)
+    */
+   public PuzzleCatalog(File directory) {
+      ArrayList<ArrayList<byte[]>> puzzlesBySize = new ArrayList<ArrayList<byte[]>>();
+      ArrayList<ArrayList<String>> namesBySize = new ArrayList<ArrayList<String>>();
+      for (int i = 0; i <= MAX_BOARD_SIZE; i++) {
+         puzzlesBySize.add(new ArrayList<byte[]>());
+         namesBySize.add(new ArrayList<String>());
+      }
+
+      File[] sizeDirectories = directory.listFiles(File::isDirectory);
+      if (sizeDirectories == null) {
+         System.err.println("Cannot read puzzle directory: " + directory.getPath());
+         sizeDirectories = new File[0];
+      }
+      Arrays.sort(sizeDirectories);
+      for (File sizeDirectory : sizeDirectories) {
+         File[] files = sizeDirectory.listFiles(file -> file.isFile() && !file.isHidden());
+         Arrays.sort(files);
+         for (File file : files) {
+            try {
+               byte[] values = parse(Files.readAllBytes(file.toPath()));
+               int boardSize = (int) Math.round(Math.sqrt(values.length));
+               puzzlesBySize.get(boardSize).add(values);
+               namesBySize.get(boardSize).add(getName(file));
+            } catch (IOException | IllegalArgumentException e) {
+               System.err.println("Skipping " + file.getPath() + ": " + e.getMessage());
+            }
+         }
+      }
+
+      this.puzzles = new byte[MAX_BOARD_SIZE + 1][][];
+      this.names = new String[MAX_BOARD_SIZE + 1][];
+      this.indexes = new HashMap<String, Integer>();
+      for (int boardSize = 0; boardSize <= MAX_BOARD_SIZE; boardSize++) {
+         this.puzzles[boardSize] = puzzlesBySize.get(boardSize).toArray(new byte[0][]);
+         this.names[boardSize] = namesBySize.get(boardSize).toArray(new String[0]);
+         for (int i = 0; i < this.names[boardSize].length; i++) {
+            this.indexes.put(getKey(boardSize, this.names[boardSize][i]), i);
+         }
+      }
+   }
+
+   /**
+    * Gets the number of puzzles of a board size
+    * 
+    * @param boardSize The size of the board's rows and columns
+    * @return The number of puzzles
+    */
+   public int count(int boardSize) {
+      return boardSize >= 0 && boardSize <= MAX_BOARD_SIZE ? this.puzzles[boardSize].length : 0;
+   }
+
+   /**
+    * Gets the names of the puzzles of a board size
+    * 
+    * @param boardSize The size of the board's rows and columns
+    * @return The puzzle names (file names without the extension) in index
+    *         order
+    */
+   public List<String> getNames(int boardSize) {
+      if (this.count(boardSize) == 0) {
+         return List.of();
+      }
+      return List.of(this.names[boardSize]);
+   }
+
+   /**
+    * Creates a new board from a puzzle
+    * 
+    * @param boardSize The size of the board's rows and columns
+    * @param index     The index of the puzzle (0 to count - 1)
+    * @return The board described by the puzzle
+    */
+   public Board get(int boardSize, int index) {
+      return Board.fromValues(boardSize, this.puzzles[boardSize][index]);
+   }
+
+   /**
+    * Creates a new board from a puzzle
+    * 
+    * @param boardSize The size of the board's rows and columns
+    * @param name      The name of the puzzle (its file name without the
+    *                  extension)
+    * @return The board described by the puzzle, or null if there is no puzzle
+    *         with the name
+    */
+   public Board get(int boardSize, String name) {
+      Integer index = this.indexes.get(getKey(boardSize, name));
+      return index == null ? null : this.get(boardSize, index);
+   }
+
+   /**
+    * Creates a new board from a randomly chosen puzzle
+    * 
+    * @param boardSize The size of the board's rows and columns
+    * @return The board described by the puzzle, or null if there are no
+    *         puzzles of the board size
+    */
+   public Board random(int boardSize) {
+      int count = this.count(boardSize);
+      if (count == 0) {
+         return null;
+      }
+      return this.get(boardSize, ThreadLocalRandom.current().nextInt(count));
+   }
+
+   /** The directory of puzzles */
+   private static final String PUZZLES_DIRECTORY = "puzzles";
+   /** The largest supported board size */
+   private static final int MAX_BOARD_SIZE = 25;
+   /** The cell values of each puzzle in row-major order, indexed by board size */
+   private byte[][][] puzzles;
+   /** The name of each puzzle, indexed by board size */
+   private String[][] names;
+   /** The index of each puzzle by board size and name */
+   private Map<String, Integer> indexes;
+
+   /**
+    * Reads the puzzles directory when the default catalog is first used
+    */
+   private static class DefaultHolder {
+      /** The catalog of the puzzles directory */
+      private static final PuzzleCatalog CATALOG = new PuzzleCatalog(new File(PUZZLES_DIRECTORY));
+   }
+
+   /**
+    * Parses the text of a puzzle file, ignoring blank lines and separator
+    * characters (the board size is the number of rows), without creating a
+    * string for each line
+    * 
+    * @param text The bytes of the puzzle file
+    * @return The cell values in row-major order (0 for an empty cell)
+    * @throws IllegalArgumentException if the rows are not all as long as the
+    *                                  number of rows, or the number of rows is
+    *                                  not a perfect square from 4 to 25
+    */
+   private static byte[] parse(byte[] text) {
+      byte[] symbols = new byte[text.length];
+      int symbolCount = 0;
+      int rowCount = 0;
+      int rowLength = 0;
+      int firstRowLength = 0;
+      for (int i = 0; i <= text.length; i++) {
+         byte symbol = i < text.length ? text[i] : (byte) '\n';
+         if (symbol == '\n') {
+            if (rowLength > 0) {
+               rowCount++;
+               if (rowCount == 1) {
+                  firstRowLength = rowLength;
+               } else if (rowLength != firstRowLength) {
+                  throw new IllegalArgumentException(
+                        "Row " + rowCount + " has " + rowLength + " cells instead of " + firstRowLength);
+               }
+            }
+            rowLength = 0;
+         } else if (Board.isCellSymbol((char) symbol)) {
+            symbols[symbolCount] = symbol;
+            symbolCount++;
+            rowLength++;
+         }
+      }
+      if (rowCount == 0 || firstRowLength != rowCount || rowCount > MAX_BOARD_SIZE) {
+         throw new IllegalArgumentException(
+               "Expected a square board, found " + rowCount + " rows of " + firstRowLength + " cells");
+      }
+      if (!Board.isSupportedSize(rowCount)) {
+         throw new IllegalArgumentException("A puzzle with " + rowCount + " rows is not a supported board");
+      }
+
+      byte[] values = new byte[symbolCount];
+      for (int i = 0; i < symbolCount; i++) {
+         int value = Board.toValue(Board.convertSymbol((char) symbols[i], rowCount));
+         values[i] = (byte) (value <= rowCount ? value : 0);
+      }
+      return values;
+   }
+
+   /**
+    * Gets the name of a puzzle file
+    * 
+    * @param file The puzzle file
+    * @return The file name without its extension
+    */
+   private static String getName(File file) {
+      String name = file.getName();
+      int extension = name.lastIndexOf('.');
+      return extension > 0 ? name.substring(0, extension) : name;
+   }
+
+   /**
+    * Gets the key of a puzzle in the name index
+    * 
+    * @param boardSize The size of the board's rows and columns
+    * @param name      The name of the puzzle
+    * @return The key of the puzzle
+    */
+   private static String getKey(int boardSize, String name) {
+      return boardSize + "/" + name;
+   }
+}
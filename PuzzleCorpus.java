@@ -0,0 +1,176 @@
+
+/**
+ * Reads puzzles from a packed binary corpus file by memory-mapping it, so any
+ * puzzle can be decoded without loading the whole file onto the heap
+ * 
+ * The file starts with a fixed-size header (magic number, format version,
+ * puzzle count, and index offset), followed by one record per puzzle (the
+ * board size in one byte, then the cell values in row-major order packed 5
+ * bits each, lowest bits first), followed by the index (the file offset of
+ * each record as a long).
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+public class PuzzleCorpus {
+   /** The number that identifies a corpus file ("SDKC") */
+   public static final int MAGIC = 0x53444B43;
+   /** The version of the corpus format */
+   public static final int VERSION = 1;
+   /** The size of the header in bytes */
+   public static final int HEADER_SIZE = 24;
+   /** The number of bits used for each cell value */
+   public static final int BITS_PER_CELL = 5;
+   /** The largest supported board size */
+   public static final int MAX_BOARD_SIZE = 25;
+
+   /**
+    * Opens a corpus file and maps it into memory
+    * 
+    * @param file The corpus file
+    * @throws IOException if the file cannot be read, is larger than 2 GB, or is
+    *                     not a corpus file
+    */
+   public PuzzleCorpus(File file) throws IOException {
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+         if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+            throw new IOException("Unsupported corpus file size: " + channel.size());
+         }
+         this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      }
+      if (this.data.getInt(0) != MAGIC) {
+         throw new IOException("Not a corpus file: " + file.getPath());
+      }
+      if (this.data.getInt(4) != VERSION) {
+         throw new IOException("Unsupported corpus version: " + this.data.getInt(4));
+      }
+      long count = this.data.getLong(8);
+      long indexOffset = this.data.getLong(16);
+      if (count < 0 || indexOffset < HEADER_SIZE || indexOffset + count * Long.BYTES != this.data.capacity()) {
+         throw new IOException("Corrupt corpus index: " + file.getPath());
+      }
+      this.count = (int) count;
+      this.indexOffset = (int) indexOffset;
+   }
+
+   /**
+    * Gets the number of puzzles in the corpus
+    * 
+    * @return The number of puzzles
+    */
+   public int count() {
+      return this.count;
+   }
+
+   /**
+    * Gets the board size of a puzzle without decoding it
+    * 
+    * @param index The index of the puzzle (0 to count - 1)
+    * @return The size of the puzzle's rows and columns
+    */
+   public int getBoardSize(int index) {
+      return this.data.get(this.getOffset(index));
+   }
+
+   /**
+    * Decodes a puzzle into a new board
+    * 
+    * @param index The index of the puzzle (0 to count - 1)
+    * @return The board described by the puzzle
+    */
+   public Board get(int index) {
+      int offset = this.getOffset(index);
+      return unpack(this.data, offset + 1, this.data.get(offset));
+   }
+
+   /**
+    * Gets the number of bytes needed to pack the cell values of a board
+    * 
+    * @param cellCount The number of cells on the board
+    * @return The number of bytes
+    */
+   public static int getPackedSize(int cellCount) {
+      return (cellCount * BITS_PER_CELL + 7) / 8;
+   }
+
+   /**
+    * Writes the cell values of a board in row-major order, packed 5 bits each,
+    * lowest bits first
+    * 
+    * @param board The board
+    * @param out   The buffer to write to (with at least
+    *              getPackedSize(board.size * board.size) bytes remaining)
+    */
+   public static void pack(Board board, ByteBuffer out) {
+      int bits = 0;
+      int bitCount = 0;
+      for (int i = 0; i < board.size * board.size; i++) {
+         bits |= board.getValue(i / board.size, i % board.size) << bitCount;
+         bitCount += BITS_PER_CELL;
+         while (bitCount >= 8) {
+            out.put((byte) bits);
+            bits >>>= 8;
+            bitCount -= 8;
+         }
+      }
+      if (bitCount > 0) {
+         out.put((byte) bits);
+      }
+   }
+
+   /**
+    * Reads cell values written by pack() into a new board
+    * 
+    * @param data      The buffer to read from (its position is not changed)
+    * @param position  The index of the first packed byte
+    * @param boardSize The size of the board's rows and columns
+    * @return The board with the values
+    */
+   public static Board unpack(ByteBuffer data, int position, int boardSize) {
+      Board board = new Board(boardSize);
+      int bits = 0;
+      int bitCount = 0;
+      for (int i = 0; i < boardSize * boardSize; i++) {
+         if (bitCount < BITS_PER_CELL) {
+            bits |= (data.get(position) & 0xFF) << bitCount;
+            position++;
+            bitCount += 8;
+         }
+         int value = bits & ((1 << BITS_PER_CELL) - 1);
+         bits >>>= BITS_PER_CELL;
+         bitCount -= BITS_PER_CELL;
+         if (value != 0 && value <= boardSize) {
+            board.setValue(i / boardSize, i % boardSize, value);
+         }
+      }
+      return board;
+   }
+
+   /** The mapped corpus file */
+   private MappedByteBuffer data;
+   /** The number of puzzles in the corpus */
+   private int count;
+   /** The file offset of the index */
+   private int indexOffset;
+
+   /**
+    * Gets the file offset of a puzzle record from the index
+    * 
+    * @param index The index of the puzzle (0 to count - 1)
+    * @return The file offset of the record
+    */
+   private int getOffset(int index) {
+      if (index < 0 || index >= this.count) {
+         throw new IndexOutOfBoundsException("Puzzle " + index + " of " + this.count);
+      }
+      return (int) this.data.getLong(this.indexOffset + index * Long.BYTES);
+   }
+}
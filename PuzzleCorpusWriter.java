@@ -0,0 +1,146 @@
+
+/**
+ * Writes puzzles to a packed binary corpus file that PuzzleCorpus can read
+ * 
+ * Usage: java PuzzleCorpusWriter <corpus file> [puzzles directory]
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class PuzzleCorpusWriter implements AutoCloseable {
+   public static void main(String args[]) {
+      if (args.length < 1 || args.length > 2) {
+         System.err.println("Usage: java PuzzleCorpusWriter <corpus file> [puzzles directory]");
+         System.exit(2);
+      }
+      PuzzleCatalog catalog = new PuzzleCatalog(new File(args.length == 2 ? args[1] : "puzzles"));
+      try (PuzzleCorpusWriter writer = new PuzzleCorpusWriter(new File(args[0]))) {
+         for (int boardSize = 1; boardSize <= PuzzleCorpus.MAX_BOARD_SIZE; boardSize++) {
+            for (int i = 0; i < catalog.count(boardSize); i++) {
+               writer.add(catalog.get(boardSize, i));
+            }
+         }
+         System.out.println("Wrote " + writer.count() + " puzzles to " + args[0]);
+      } catch (IOException e) {
+         System.err.println("Error writing corpus: " + e.getMessage());
+         System.exit(1);
+      }
+   }
+
+   /**
+    * Creates (or replaces) a corpus file and prepares it for writing
+    * 
+    * @param file The corpus file
+    * @throws IOException if the file cannot be opened
+    */
+   public PuzzleCorpusWriter(File file) throws IOException {
+      this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+      this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      this.offsets = new long[INITIAL_INDEX_CAPACITY];
+      this.position = PuzzleCorpus.HEADER_SIZE;
+      this.channel.position(PuzzleCorpus.HEADER_SIZE);
+   }
+
+   /**
+    * Appends a puzzle to the corpus
+    * 
+    * @param board The puzzle to append
+    * @throws IOException if the puzzle cannot be written
+    */
+   public void add(Board board) throws IOException {
+      if (board.size < 1 || board.size > PuzzleCorpus.MAX_BOARD_SIZE) {
+         throw new IllegalArgumentException("Unsupported board size: " + board.size);
+      }
+      int cellCount = board.size * board.size;
+      int recordSize = 1 + PuzzleCorpus.getPackedSize(cellCount);
+      if (this.buffer.remaining() < recordSize) {
+         this.flush();
+      }
+      if (this.count == this.offsets.length) {
+         this.offsets = Arrays.copyOf(this.offsets, this.offsets.length * 2);
+      }
+      this.offsets[this.count] = this.position;
+      this.count++;
+      this.position += recordSize;
+
+      this.buffer.put((byte) board.size);
+      PuzzleCorpus.pack(board, this.buffer);
+   }
+
+   /**
+    * Gets the number of puzzles appended so far
+    * 
+    * @return The number of puzzles
+    */
+   public int count() {
+      return this.count;
+   }
+
+   /**
+    * Writes the offset index and the header, then closes the file
+    * 
+    * @throws IOException if the file cannot be written
+    */
+   @Override
+   public void close() throws IOException {
+      try {
+         for (int i = 0; i < this.count; i++) {
+            if (this.buffer.remaining() < Long.BYTES) {
+               this.flush();
+            }
+            this.buffer.putLong(this.offsets[i]);
+         }
+         this.flush();
+
+         ByteBuffer header = ByteBuffer.allocate(PuzzleCorpus.HEADER_SIZE);
+         header.putInt(PuzzleCorpus.MAGIC);
+         header.putInt(PuzzleCorpus.VERSION);
+         header.putLong(this.count);
+         header.putLong(this.position);
+         header.flip();
+         this.channel.position(0);
+         while (header.hasRemaining()) {
+            this.channel.write(header);
+         }
+      } finally {
+         this.channel.close();
+      }
+   }
+
+   /** The size of the write buffer in bytes */
+   private static final int BUFFER_SIZE = 1 << 16;
+   /** The number of offsets the index starts with room for */
+   private static final int INITIAL_INDEX_CAPACITY = 1024;
+   /** The corpus file */
+   private FileChannel channel;
+   /** The bytes waiting to be written */
+   private ByteBuffer buffer;
+   /** The file offset of each puzzle record */
+   private long[] offsets;
+   /** The number of puzzles appended */
+   private int count;
+   /** The file offset of the next puzzle record */
+   private long position;
+
+   /**
+    * Writes the buffered bytes to the file
+    * 
+    * @throws IOException if the bytes cannot be written
+    */
+   private void flush() throws IOException {
+      this.buffer.flip();
+      while (this.buffer.hasRemaining()) {
+         this.channel.write(this.buffer);
+      }
+      this.buffer.clear();
+   }
+}
@@ -0,0 +1,497 @@
+
+/**
+ * Generates random puzzles with exactly one solution by filling a random
+ * complete grid and removing givens for as long as the solution stays unique
+ * 
+ * Usage: java PuzzleGenerator [--size <n>] [--givens <n>] [--difficulty
+ * <easy|medium|hard>] [--count <n>] [--threads <n>] [--corpus <file>]
+ * 
+ * Without --corpus, the puzzles are written to the console one per line, in
+ * the format SudokuSolver --lines reads.
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class PuzzleGenerator {
+   public static void main(String args[]) {
+      int boardSize = 9;
+      int givens = -1;
+      Difficulty difficulty = null;
+      long count = DEFAULT_COUNT;
+      int threadCount = Runtime.getRuntime().availableProcessors();
+      String corpusPath = null;
+      try {
+         for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--size") && i + 1 < args.length) {
+               boardSize = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--givens") && i + 1 < args.length) {
+               givens = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--difficulty") && i + 1 < args.length) {
+               difficulty = Difficulty.valueOf(args[++i].toUpperCase());
+            } else if (args[i].equals("--count") && i + 1 < args.length) {
+               count = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--threads") && i + 1 < args.length) {
+               threadCount = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--corpus") && i + 1 < args.length) {
+               corpusPath = args[++i];
+            } else {
+               System.err.println("Unknown argument: " + args[i]);
+               System.exit(2);
+            }
+         }
+      } catch (IllegalArgumentException e) {
+         System.err.println("Invalid argument: " + e.getMessage());
+         System.exit(2);
+      }
+      if (!DEFAULT_GIVENS.containsKey(boardSize) || threadCount < 1) {
+         System.err.println("Unsupported board size or thread count");
+         System.exit(2);
+      }
+      if (givens < 0) {
+         givens = DEFAULT_GIVENS.get(boardSize);
+      }
+
+      PuzzleGenerator generator = new PuzzleGenerator(boardSize, givens, difficulty);
+      long startTime = System.nanoTime();
+      try {
+         if (corpusPath != null) {
+            try (PuzzleCorpusWriter writer = new PuzzleCorpusWriter(new File(corpusPath))) {
+               generator.generate(count, threadCount, puzzle -> {
+                  synchronized (writer) {
+                     try {
+                        writer.add(puzzle);
+                     } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                     }
+                  }
+               });
+            }
+         } else {
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+            generator.generate(count, threadCount, puzzle -> {
+               String line = toLine(puzzle);
+               synchronized (out) {
+                  try {
+                     out.write(line);
+                  } catch (IOException e) {
+                     throw new UncheckedIOException(e);
+                  }
+               }
+            });
+            out.flush();
+         }
+      } catch (IOException | UncheckedIOException e) {
+         System.err.println("Error writing puzzles: " + e.getMessage());
+         System.exit(1);
+      } catch (IllegalStateException e) {
+         // the pool rethrows a copy of the worker's exception, with the original as its cause
+         Throwable cause = e;
+         while (cause.getCause() != null) {
+            cause = cause.getCause();
+         }
+         System.err.println("Error generating puzzles: " + cause.getMessage());
+         System.exit(1);
+      }
+      double seconds = (System.nanoTime() - startTime) / 1e9;
+      System.err.printf("Generated %d puzzles in %.3f s (%.1f puzzles/sec)%n", count, seconds, count / seconds);
+   }
+
+   /**
+    * Creates a generator
+    * 
+    * @param boardSize    The size of the board's rows and columns
+    * @param targetGivens The number of givens to aim for (puzzles keep more
+    *                     when no further given can be removed without losing
+    *                     uniqueness)
+    * @param difficulty   The difficulty every puzzle must have, or null for any
+    *                     difficulty
+    */
+   public PuzzleGenerator(int boardSize, int targetGivens, Difficulty difficulty) {
+      this.boardSize = boardSize;
+      this.boxSize = (int) Math.round(Math.sqrt(boardSize));
+      this.targetGivens = targetGivens;
+      this.difficulty = difficulty;
+   }
+
+   /**
+    * Generates one puzzle, retrying until it has the target difficulty
+    * 
+    * @return A puzzle with exactly one solution
+    * @throws IllegalStateException if no puzzle of the target difficulty was
+    *                               found in MAX_ATTEMPTS tries (like hard 4x4
+    *                               puzzles, which singles always solve)
+    */
+   public Board generate() {
+      Random random = ThreadLocalRandom.current();
+      for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+         Board puzzle = this.removeGivens(this.createGrid(random), random);
+         if (this.difficulty == null || rate(puzzle) == this.difficulty) {
+            return puzzle;
+         }
+      }
+      throw new IllegalStateException("No " + this.difficulty.name().toLowerCase() + " " + this.boardSize + "x"
+            + this.boardSize + " puzzle with " + this.targetGivens + " givens found in " + MAX_ATTEMPTS
+            + " attempts");
+   }
+
+   /**
+    * Creates an endless stream of puzzles, which can be made parallel to
+    * generate on several threads at once
+    * 
+    * @return The unordered stream of puzzles
+    */
+   public Stream<Board> stream() {
+      return Stream.generate(this::generate);
+   }
+
+   /**
+    * Generates puzzles on a pool of threads and hands each one to a consumer
+    * as soon as it is ready
+    * 
+    * @param count       The number of puzzles to generate
+    * @param threadCount The number of threads to generate on
+    * @param consumer    The consumer of the puzzles (called from several
+    *                    threads at once)
+    */
+   public void generate(long count, int threadCount, Consumer<Board> consumer) {
+      ForkJoinPool pool = new ForkJoinPool(threadCount);
+      try {
+         pool.submit(() -> this.stream().parallel().limit(count).forEach(consumer)).get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+         if (e.getCause() instanceof RuntimeException) {
+            throw (RuntimeException) e.getCause();
+         }
+         throw new IllegalStateException(e.getCause());
+      } finally {
+         pool.shutdown();
+      }
+   }
+
+   /**
+    * Rates how much reasoning a puzzle needs
+    * 
+    * @param puzzle The puzzle (left unchanged)
+    * @return The difficulty of the puzzle
+    */
+   public static Difficulty rate(Board puzzle) {
+      Board board = new Board(puzzle);
+      if (applySingles(board)) {
+         return Difficulty.EASY;
+      }
+      if (new PropagationSolver(board).presolve() && board.isFull()) {
+         return Difficulty.MEDIUM;
+      }
+      return Difficulty.HARD;
+   }
+
+   /**
+    * Writes a puzzle as one line of puzzle file characters
+    * 
+    * @param puzzle The puzzle
+    * @return The line, ending with a line break
+    */
+   public static String toLine(Board puzzle) {
+      return puzzle.toLine() + '\n';
+   }
+
+   /** The largest board size whose grids are completed by a solver */
+   private static final int MAX_SOLVED_GRID_SIZE = 16;
+   /**
+    * The default number of givens for each board size (close to the bundled
+    * puzzles, where uniqueness checks stay fast)
+    */
+   private static final Map<Integer, Integer> DEFAULT_GIVENS = Map.of(
+         4, 7,
+         9, 28,
+         16, 100,
+         25, 310);
+   /** The number of puzzles generated for one puzzle of the target difficulty before giving up */
+   private static final int MAX_ATTEMPTS = 1000;
+   /** The default number of puzzles generated from the command line */
+   private static final long DEFAULT_COUNT = 1000;
+   /** The size of the board's rows and columns */
+   private int boardSize;
+   /** The size of the board's boxes */
+   private int boxSize;
+   /** The number of givens to aim for */
+   private int targetGivens;
+   /** The difficulty every puzzle must have, or null for any difficulty */
+   private Difficulty difficulty;
+
+   /**
+    * Creates a random complete grid
+    * 
+    * Up to 16x16, the boxes on the diagonal (which do not share any row or
+    * column) are filled with random values and a solver completes the rest.
+    * Larger grids start from a fixed pattern. Either way, the rows, columns,
+    * bands, stacks, and values are then shuffled.
+    * 
+    * @param random The source of randomness
+    * @return The complete grid
+    */
+   private Board createGrid(Random random) {
+      Board grid = new Board(this.boardSize);
+      if (this.boardSize <= MAX_SOLVED_GRID_SIZE) {
+         DancingLinksSolver solver = DancingLinksSolver.borrow(this.boardSize);
+         try {
+            do {
+               grid = new Board(this.boardSize);
+               for (int box = 0; box < this.boxSize; box++) {
+                  int[] values = this.shuffledValues(random);
+                  for (int i = 0; i < this.boardSize; i++) {
+                     grid.setValue(box * this.boxSize + i / this.boxSize, box * this.boxSize + i % this.boxSize,
+                           values[i]);
+                  }
+               }
+            } while (!solver.solve(grid));
+         } finally {
+            solver.release();
+         }
+      } else {
+         for (int r = 0; r < this.boardSize; r++) {
+            for (int c = 0; c < this.boardSize; c++) {
+               grid.setValue(r, c, (this.boxSize * (r % this.boxSize) + r / this.boxSize + c) % this.boardSize + 1);
+            }
+         }
+      }
+
+      int[] rows = this.shuffledLines(random);
+      int[] columns = this.shuffledLines(random);
+      int[] values = this.shuffledValues(random);
+      boolean isTransposed = random.nextBoolean();
+      Board shuffled = new Board(this.boardSize);
+      for (int r = 0; r < this.boardSize; r++) {
+         for (int c = 0; c < this.boardSize; c++) {
+            int value = values[grid.getValue(rows[r], columns[c]) - 1];
+            if (isTransposed) {
+               shuffled.setValue(c, r, value);
+            } else {
+               shuffled.setValue(r, c, value);
+            }
+         }
+      }
+      return shuffled;
+   }
+
+   /**
+    * Removes givens from a complete grid in random order, keeping each one
+    * whose removal would allow a second solution
+    * 
+    * @param grid   The complete grid (modified in place)
+    * @param random The source of randomness
+    * @return The puzzle
+    */
+   private Board removeGivens(Board grid, Random random) {
+      int cellCount = this.boardSize * this.boardSize;
+      int[] cells = new int[cellCount];
+      for (int i = 0; i < cellCount; i++) {
+         int j = random.nextInt(i + 1);
+         cells[i] = cells[j];
+         cells[j] = i;
+      }
+
+      int givens = cellCount;
+      for (int i = 0; i < cellCount && givens > this.targetGivens; i++) {
+         int row = cells[i] / this.boardSize;
+         int col = cells[i] % this.boardSize;
+         int value = grid.getValue(row, col);
+         grid.clearCell(row, col);
+         if (this.isForced(grid, row, col, value)) {
+            givens--;
+         } else {
+            grid.setValue(row, col, value);
+         }
+      }
+      return grid;
+   }
+
+   /**
+    * Checks if every solution of a puzzle with a unique solution still has the
+    * same value in a cell after the cell's given is removed
+    * 
+    * The puzzle had only one solution, so a second solution must put a
+    * different value in the cell. Searching for a solution with each of the
+    * cell's other candidates is cheaper than counting all solutions. Every
+    * size is searched with constraint propagation, which rules out impossible
+    * values the fastest and needs no node pool.
+    * 
+    * @param puzzle The puzzle with the given removed
+    * @param row    The row of the cell
+    * @param col    The column of the cell
+    * @param value  The removed given
+    * @return true if the puzzle still has exactly one solution (otherwise,
+    *         false)
+    */
+   private boolean isForced(Board puzzle, int row, int col, int value) {
+      int bit = 1 << (value - 1);
+      int others = puzzle.getCandidates(row, col) & ~bit;
+      if (others == 0 || this.isHiddenSingle(puzzle, row, col, bit)) {
+         return true;
+      }
+      boolean isForced = true;
+      while (others != 0 && isForced) {
+         int other = others & -others;
+         others ^= other;
+         puzzle.setValue(row, col, Integer.numberOfTrailingZeros(other) + 1);
+         isForced = new PropagationSolver(puzzle).countSolutions(1) == 0;
+      }
+      puzzle.clearCell(row, col);
+      return isForced;
+   }
+
+   /**
+    * Checks if a cell is the only empty cell of its row, column, or box that
+    * can hold a value
+    * 
+    * @param board The board
+    * @param row   The row of the cell
+    * @param col   The column of the cell
+    * @param bit   The bit of the value (bit v - 1 for value v)
+    * @return true if the value has no other place in one of the cell's units
+    *         (otherwise, false)
+    */
+   private boolean isHiddenSingle(Board board, int row, int col, int bit) {
+      boolean isRowSingle = true;
+      boolean isColumnSingle = true;
+      boolean isBoxSingle = true;
+      int boxRow = row - row % this.boxSize;
+      int boxCol = col - col % this.boxSize;
+      for (int i = 0; i < this.boardSize; i++) {
+         if (i != col && board.getValue(row, i) == 0 && (board.getCandidates(row, i) & bit) != 0) {
+            isRowSingle = false;
+         }
+         if (i != row && board.getValue(i, col) == 0 && (board.getCandidates(i, col) & bit) != 0) {
+            isColumnSingle = false;
+         }
+         int r = boxRow + i / this.boxSize;
+         int c = boxCol + i % this.boxSize;
+         if ((r != row || c != col) && board.getValue(r, c) == 0 && (board.getCandidates(r, c) & bit) != 0) {
+            isBoxSingle = false;
+         }
+      }
+      return isRowSingle || isColumnSingle || isBoxSingle;
+   }
+
+   /**
+    * Creates a random order of the rows (or columns) that keeps each row in its
+    * band of boxes
+    * 
+    * @param random The source of randomness
+    * @return The original index of the row placed at each index
+    */
+   private int[] shuffledLines(Random random) {
+      int[] bands = this.shuffledIndexes(this.boxSize, random);
+      int[] lines = new int[this.boardSize];
+      for (int band = 0; band < this.boxSize; band++) {
+         int[] offsets = this.shuffledIndexes(this.boxSize, random);
+         for (int i = 0; i < this.boxSize; i++) {
+            lines[band * this.boxSize + i] = bands[band] * this.boxSize + offsets[i];
+         }
+      }
+      return lines;
+   }
+
+   /**
+    * Creates a random order of the values
+    * 
+    * @param random The source of randomness
+    * @return The values 1 to size in random order
+    */
+   private int[] shuffledValues(Random random) {
+      int[] values = this.shuffledIndexes(this.boardSize, random);
+      for (int i = 0; i < values.length; i++) {
+         values[i]++;
+      }
+      return values;
+   }
+
+   /**
+    * Creates a random permutation
+    * 
+    * @param length The number of indexes
+    * @param random The source of randomness
+    * @return The indexes 0 to length - 1 in random order
+    */
+   private int[] shuffledIndexes(int length, Random random) {
+      int[] indexes = new int[length];
+      for (int i = 0; i < length; i++) {
+         int j = random.nextInt(i + 1);
+         indexes[i] = indexes[j];
+         indexes[j] = i;
+      }
+      return indexes;
+   }
+
+   /**
+    * Fills every cell that naked or hidden singles determine
+    * 
+    * @param board The board to fill in place
+    * @return true if the board was filled (otherwise, false)
+    */
+   private static boolean applySingles(Board board) {
+      int size = board.size;
+      int[][] units = board.createUnits();
+      boolean changed = true;
+      while (changed) {
+         changed = false;
+         for (int cell = 0; cell < size * size; cell++) {
+            int row = cell / size;
+            int col = cell % size;
+            if (board.getValue(row, col) == 0) {
+               int candidates = board.getCandidates(row, col);
+               if (candidates == 0) {
+                  return false;
+               }
+               if ((candidates & (candidates - 1)) == 0) {
+                  board.setValue(row, col, Integer.numberOfTrailingZeros(candidates) + 1);
+                  changed = true;
+               }
+            }
+         }
+         for (int[] unit : units) {
+            // values that are a candidate of exactly one empty cell in the unit
+            int once = 0;
+            int twice = 0;
+            for (int cell : unit) {
+               if (board.getValue(cell / size, cell % size) == 0) {
+                  int candidates = board.getCandidates(cell / size, cell % size);
+                  twice |= once & candidates;
+                  once |= candidates;
+               }
+            }
+            int singles = once & ~twice;
+            for (int cell : unit) {
+               int row = cell / size;
+               int col = cell % size;
+               if (singles != 0 && board.getValue(row, col) == 0) {
+                  int single = board.getCandidates(row, col) & singles;
+                  if (single != 0) {
+                     single &= -single;
+                     board.setValue(row, col, Integer.numberOfTrailingZeros(single) + 1);
+                     singles &= ~single;
+                     changed = true;
+                  }
+               }
+            }
+         }
+      }
+      return board.isFull();
+   }
+}
@@ -0,0 +1,65 @@
+
+/**
+ * A JDK Flight Recorder event for reading a puzzle into a board
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("sudoku.PuzzleParse")
+@Label("Puzzle Parse")
+@Category("Sudoku")
+@Description("A puzzle read from a file, a line of puzzles, or the puzzle catalog")
+public class PuzzleParseEvent extends Event {
+   /**
+    * Records the parse, if the event is enabled and lasted longer than the
+    * recording's threshold
+    * 
+    * @param source Where the puzzle came from
+    * @param board  The board read (or null if the puzzle could not be read)
+    */
+   public void finish(String source, Board board) {
+      this.finish(source, 0, board);
+   }
+
+   /**
+    * Records the parse of one line of a file with one puzzle per line, if the
+    * event is enabled and lasted longer than the recording's threshold
+    * 
+    * @param source     Where the puzzle came from
+    * @param lineNumber The line number of the puzzle (counting from 1)
+    * @param board      The board read (or null if the puzzle could not be
+    *                   read)
+    */
+   public void finish(String source, long lineNumber, Board board) {
+      this.end();
+      if (this.shouldCommit()) {
+         this.source = source;
+         this.lineNumber = lineNumber;
+         if (board != null) {
+            this.boardSize = board.size;
+            this.givens = board.getFilledCount();
+         }
+         this.commit();
+      }
+   }
+
+   /** Where the puzzle came from */
+   @Label("Source")
+   private String source;
+   /** The line number of the puzzle (0 if it was not read from a line) */
+   @Label("Line Number")
+   private long lineNumber;
+   /** The size of the board's rows and columns (0 if it could not be read) */
+   @Label("Board Size")
+   private int boardSize;
+   /** The number of filled cells */
+   @Label("Givens")
+   private int givens;
+}
@@ -0,0 +1,501 @@
+
+/**
+ * Checks every solving engine against the bundled puzzles and their answer
+ * keys and compares solve times with a stored baseline
+ * 
+ * Times are compared as multiples of the time the reference engine
+ * (propagation) takes on the same puzzles in the same run, so a slower or
+ * busier machine does not fail the run. The reference engine itself is checked
+ * by the number of search nodes it visits, which does not depend on the
+ * machine at all. The portfolio engine's answers are checked, but not its
+ * times, which depend on how its threads are scheduled. Every puzzle is
+ * checked, up to each engine's largest board size: puzzles with an answer key
+ * must match it (unless they have more than one solution), and the others must
+ * be solved validly.
+ * 
+ * A wrong answer, a slowdown or node count over the baseline, or a missing
+ * baseline fails the run. --record stores the measurements in the baseline
+ * instead, keeping the stored measurements of the engines that were not run.
+ * The queue-based engine (bfs) takes minutes, so it only runs when selected.
+ * 
+ * Usage: java RegressionHarness [--baseline <file>] [--threshold <percent>]
+ * [--repeats <count>] [--record] [--engine <name>]...
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+public class RegressionHarness {
+   public static void main(String args[]) {
+      String baselinePath = DEFAULT_BASELINE;
+      double threshold = DEFAULT_THRESHOLD;
+      int repeats = DEFAULT_REPEATS;
+      boolean record = false;
+      List<String> engines = new ArrayList<String>();
+      try {
+         for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--baseline") && i + 1 < args.length) {
+               baselinePath = args[++i];
+            } else if (args[i].equals("--threshold") && i + 1 < args.length) {
+               threshold = Double.parseDouble(args[++i]);
+            } else if (args[i].equals("--repeats") && i + 1 < args.length) {
+               repeats = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--engine") && i + 1 < args.length) {
+               engines.add(args[++i]);
+            } else if (args[i].equals("--record")) {
+               record = true;
+            } else {
+               System.err.println("Unknown argument: " + args[i]);
+               System.exit(2);
+            }
+         }
+      } catch (NumberFormatException e) {
+         System.err.println("Invalid number: " + e.getMessage());
+         System.exit(2);
+      }
+      if (engines.isEmpty()) {
+         engines = SolverRegistry.getNames();
+         engines.remove(SolverRegistry.BFS);
+      }
+
+      RegressionHarness harness = new RegressionHarness(new File(PUZZLES_DIRECTORY),
+            new File(SOLUTIONS_DIRECTORY), repeats);
+      boolean passed = harness.run(engines, new File(baselinePath), threshold, record);
+      System.exit(passed ? 0 : 1);
+   }
+
+   /**
+    * Creates a harness for the bundled puzzles
+    * 
+    * @param puzzlesDirectory   The directory of puzzles (one subdirectory per
+    *                           board size)
+    * @param solutionsDirectory The directory of answer keys (one subdirectory
+    *                           per board size, named like the puzzles directory)
+    * @param repeats            The smallest number of times each puzzle is
+    *                           solved (the fastest time is kept)
+    */
+   public RegressionHarness(File puzzlesDirectory, File solutionsDirectory, int repeats) {
+      this.cases = findCases(puzzlesDirectory, solutionsDirectory);
+      this.repeats = repeats;
+   }
+
+   /**
+    * Runs the engines on every puzzle, checks every result, and compares each
+    * engine's time per board size, relative to the reference engine, with the
+    * baseline
+    * 
+    * @param engines      The names of the engines to check
+    * @param baselineFile The file that stores the baseline
+    * @param threshold    The allowed slowdown or node count increase over the
+    *                     baseline, in percent
+    * @param record       Whether to store the measurements in the baseline
+    *                     instead of comparing against them
+    * @return true if every result was correct and every engine had a baseline
+    *         it did not regress from (otherwise, false)
+    */
+   public boolean run(List<String> engines, File baselineFile, double threshold, boolean record) {
+      Properties baseline = loadBaseline(baselineFile);
+      Properties measured = new Properties();
+      measured.putAll(baseline);
+      boolean passed = true;
+      System.out.println("Checking " + this.cases.size() + " puzzles against " + REFERENCE_ENGINE + " times");
+
+      // solve everything once first, so no engine is timed before the JIT compiler has warmed up
+      List<String> measuredEngines = new ArrayList<String>(engines);
+      measuredEngines.remove(REFERENCE_ENGINE);
+      measuredEngines.add(0, REFERENCE_ENGINE);
+      for (String engine : measuredEngines) {
+         for (Case testCase : this.cases) {
+            if (testCase.puzzle.size <= SolverRegistry.getMaxBoardSize(engine)) {
+               SolverRegistry.get(engine, testCase.puzzle.size).solve(new Board(testCase.puzzle));
+            }
+         }
+      }
+
+      for (int boardSize : this.getBoardSizes()) {
+         List<String> sizeEngines = new ArrayList<String>();
+         for (String engine : measuredEngines) {
+            if (boardSize <= SolverRegistry.getMaxBoardSize(engine)) {
+               sizeEngines.add(engine);
+            }
+         }
+         Map<String, Measurement> measurements = this.measure(sizeEngines, boardSize);
+         Measurement reference = measurements.get(REFERENCE_ENGINE);
+         for (String engine : sizeEngines) {
+            Measurement measurement = measurements.get(engine);
+            boolean isReference = engine.equals(REFERENCE_ENGINE);
+            String key = engine + "." + boardSize + (isReference ? NODES_SUFFIX : "");
+            // the reference engine's node count is deterministic, the others are timed against it
+            double value = isReference ? measurement.nodes : (double) measurement.nanos / reference.nanos;
+            String unit = isReference ? "nodes" : "x " + REFERENCE_ENGINE;
+            boolean isTimed = !UNTIMED_ENGINES.contains(engine);
+            if (isTimed) {
+               measured.setProperty(key, String.format("%.4f", value));
+            }
+            String line = String.format("%-12s %2dx%-2d %3d puzzles %10.3f ms %12.2f %s", engine, boardSize,
+                  boardSize, measurement.checked, measurement.nanos / 1e6, value, unit);
+            if (!engines.contains(engine)) {
+               // measured only as the reference for the selected engines
+               continue;
+            }
+            if (measurement.wrong > 0) {
+               passed = false;
+               System.out.println("FAIL     " + line + "  " + measurement.wrong + " wrong");
+            } else if (record || !isTimed) {
+               System.out.println("OK       " + line + (isTimed ? "" : "  (not timed)"));
+            } else if (baseline.containsKey(key)) {
+               double baselineValue = Double.parseDouble(baseline.getProperty(key));
+               double change = 100.0 * (value - baselineValue) / baselineValue;
+               boolean isRegression = change > threshold;
+               passed &= !isRegression;
+               System.out.printf("%-8s %s  %+.1f%% vs baseline %.2f%n", isRegression ? "SLOWER" : "OK", line,
+                     change, baselineValue);
+            } else {
+               passed = false;
+               System.out.println("NO BASE  " + line);
+            }
+         }
+      }
+
+      if (record) {
+         saveBaseline(baselineFile, measured);
+         System.out.println("Baseline written to " + baselineFile.getPath());
+      } else if (baseline.isEmpty()) {
+         System.out.println("No baseline at " + baselineFile.getPath() + " (run with --record to record one)");
+      }
+      System.out.println(passed ? "PASSED" : "FAILED");
+      return passed;
+   }
+
+   /** The directory of answer keys */
+   private static final String SOLUTIONS_DIRECTORY = "solutions";
+   /** The directory of puzzles */
+   private static final String PUZZLES_DIRECTORY = "puzzles";
+   /** The default file that stores the baseline */
+   private static final String DEFAULT_BASELINE = "regression-baseline.properties";
+   /** The engine that the other engines are timed against */
+   private static final String REFERENCE_ENGINE = SolverRegistry.PROPAGATION;
+   /**
+    * The engines whose times are not compared with the baseline, because they
+    * race other engines on threads and take up to twice as long in one run as
+    * in another, depending on which engine the operating system runs first
+    */
+   private static final Set<String> UNTIMED_ENGINES = Set.of(SolverRegistry.PORTFOLIO);
+   /** The end of the baseline keys that hold the reference engine's node counts */
+   private static final String NODES_SUFFIX = ".nodes";
+   /** The default allowed slowdown or node count increase over the baseline, in percent */
+   private static final double DEFAULT_THRESHOLD = 25;
+   /** The default smallest number of times each puzzle is solved */
+   private static final int DEFAULT_REPEATS = 5;
+   /** The time per engine that the passes over a board size add up to before the fastest are kept */
+   private static final long MIN_MEASURE_NANOS = 500_000_000;
+   /** The largest number of passes over a board size */
+   private static final int MAX_PASSES = 1000;
+   /** The puzzles and their answer keys */
+   private List<Case> cases;
+   /** The smallest number of times each puzzle is solved */
+   private int repeats;
+
+   /**
+    * Finds every puzzle and pairs it with its answer key, if it has one (an
+    * answer key is named after its puzzle followed by an underscore, like
+    * s01a_s.txt for s01a.txt), keeping only the keys of puzzles with one
+    * solution
+    * 
+    * @param puzzlesDirectory   The directory of puzzles
+    * @param solutionsDirectory The directory of answer keys
+    * @return The puzzles and their answer keys
+    */
+   private static List<Case> findCases(File puzzlesDirectory, File solutionsDirectory) {
+      List<Case> cases = new ArrayList<Case>();
+      File[] sizeDirectories = puzzlesDirectory.listFiles(File::isDirectory);
+      if (sizeDirectories == null) {
+         return cases;
+      }
+      Arrays.sort(sizeDirectories);
+      for (File sizeDirectory : sizeDirectories) {
+         File[] puzzleFiles = sizeDirectory.listFiles(file -> file.isFile() && !file.isHidden());
+         Arrays.sort(puzzleFiles);
+         File[] solutionFiles = new File(solutionsDirectory, sizeDirectory.getName())
+               .listFiles(file -> file.isFile() && !file.isHidden() && file.getName().contains("_"));
+         for (File puzzleFile : puzzleFiles) {
+            Board puzzle;
+            try {
+               puzzle = Board.fromFile(puzzleFile);
+            } catch (FileNotFoundException | IllegalArgumentException e) {
+               System.out.println("SKIPPED  " + puzzleFile.getPath() + " (" + e.getMessage() + ")");
+               continue;
+            }
+            File solutionFile = findSolutionFile(puzzleFile, solutionFiles);
+            Board solution = null;
+            if (solutionFile != null) {
+               try {
+                  solution = Board.fromFile(solutionFile);
+               } catch (FileNotFoundException | IllegalArgumentException e) {
+                  System.out.println("BAD KEY  " + solutionFile.getPath() + " (" + e.getMessage() + ")");
+               }
+            }
+            int mismatch = solution != null ? findMismatch(solution, puzzle) : -1;
+            if (mismatch != -1) {
+               System.out.println("BAD KEY  " + solutionFile.getPath() + " ("
+                     + describeCell(mismatch, solution.size) + "), checking validity only");
+               solution = null;
+            } else if (solution != null && !puzzle.isUnique()) {
+               // another valid answer is not a bug when the puzzle has several
+               System.out.println("SEVERAL  " + puzzleFile.getPath() + " has more than one solution,"
+                     + " checking validity only");
+               solution = null;
+            }
+            cases.add(new Case(puzzleFile, puzzle, solution));
+         }
+      }
+      return cases;
+   }
+
+   /**
+    * Finds the answer key of a puzzle
+    * 
+    * @param puzzleFile    The puzzle file
+    * @param solutionFiles The answer keys of the puzzle's board size (or null)
+    * @return The answer key, or null if the puzzle has none
+    */
+   private static File findSolutionFile(File puzzleFile, File[] solutionFiles) {
+      if (solutionFiles != null) {
+         String puzzleName = puzzleFile.getName().replaceFirst("\\.txt$", "");
+         for (File solutionFile : solutionFiles) {
+            String name = solutionFile.getName();
+            if (name.substring(0, name.lastIndexOf('_')).equals(puzzleName)) {
+               return solutionFile;
+            }
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Gets the board sizes of the puzzles
+    * 
+    * @return The board sizes in ascending order
+    */
+   private List<Integer> getBoardSizes() {
+      List<Integer> boardSizes = new ArrayList<Integer>();
+      for (Case testCase : this.cases) {
+         if (!boardSizes.contains(testCase.puzzle.size)) {
+            boardSizes.add(testCase.puzzle.size);
+         }
+      }
+      boardSizes.sort(null);
+      return boardSizes;
+   }
+
+   /**
+    * Solves every puzzle of a board size with each engine in turn, checking
+    * the results of the first pass and passing over the puzzles again until at
+    * least repeats passes and MIN_MEASURE_NANOS per engine have gone by
+    * 
+    * @param engines   The names of the engines
+    * @param boardSize The size of the boards
+    * @return For each engine, the sum of each puzzle's fastest time, with the
+    *         checks and node count of the first pass
+    */
+   private Map<String, Measurement> measure(List<String> engines, int boardSize) {
+      Map<String, Measurement> measurements = new LinkedHashMap<String, Measurement>();
+      Map<String, long[]> bestNanos = new HashMap<String, long[]>();
+      for (String engine : engines) {
+         measurements.put(engine, new Measurement());
+         long[] engineNanos = new long[this.cases.size()];
+         Arrays.fill(engineNanos, Long.MAX_VALUE);
+         bestNanos.put(engine, engineNanos);
+      }
+      long totalNanos = 0;
+      long measureNanos = MIN_MEASURE_NANOS * engines.size();
+      for (int pass = 0; pass < MAX_PASSES && (pass < this.repeats || totalNanos < measureNanos); pass++) {
+         for (int i = 0; i < this.cases.size(); i++) {
+            Case testCase = this.cases.get(i);
+            if (testCase.puzzle.size != boardSize) {
+               continue;
+            }
+            // the engines take turns on each puzzle, so a slow stretch of the machine slows all of them
+            for (String engine : engines) {
+               Measurement measurement = measurements.get(engine);
+               Board board = new Board(testCase.puzzle);
+               long startTime = System.nanoTime();
+               SolveResult result = SolverRegistry.get(engine, boardSize).solve(board);
+               long nanos = System.nanoTime() - startTime;
+               bestNanos.get(engine)[i] = Math.min(bestNanos.get(engine)[i], nanos);
+               totalNanos += nanos;
+               if (pass == 0) {
+                  measurement.checked++;
+                  measurement.nodes += result.getMetrics() != null ? result.getMetrics().getBoardsVisited() : 0;
+                  if (!this.isCorrect(engine, testCase, board, result.isSolved())) {
+                     measurement.wrong++;
+                  }
+               }
+            }
+         }
+      }
+      // the fastest time of each puzzle leaves out the pauses that fall on single solves
+      for (String engine : engines) {
+         for (int i = 0; i < this.cases.size(); i++) {
+            if (this.cases.get(i).puzzle.size == boardSize) {
+               measurements.get(engine).nanos += bestNanos.get(engine)[i];
+            }
+         }
+      }
+      return measurements;
+   }
+
+   /**
+    * Checks an engine's result for a puzzle, reporting it if it is wrong
+    * 
+    * @param engine   The name of the engine
+    * @param testCase The puzzle and its answer key
+    * @param board    The board the engine solved
+    * @param isSolved Whether the engine reported the board as solved
+    * @return true if the board is a valid solution of the puzzle that matches
+    *         its answer key, if it has one (otherwise, false)
+    */
+   private boolean isCorrect(String engine, Case testCase, Board board, boolean isSolved) {
+      String path = testCase.puzzleFile.getPath();
+      int mismatch = isSolved ? findMismatch(board, testCase.puzzle) : -1;
+      if (!isSolved || mismatch != -1) {
+         System.out.println("WRONG    " + engine + " " + path + (isSolved
+               ? " (" + describeCell(mismatch, board.size) + ")" : " (no solution returned)"));
+         return false;
+      }
+      mismatch = testCase.solution != null ? findMismatch(board, testCase.solution) : -1;
+      if (mismatch != -1) {
+         System.out.println("ALTERNATE " + engine + " " + path + " (valid, but differs from the answer key at "
+               + describeCell(mismatch, board.size) + ")");
+         return false;
+      }
+      return true;
+   }
+
+   /**
+    * Finds the first cell where a solved board breaks the rules or disagrees
+    * with a reference board (a puzzle's givens or an answer key)
+    * 
+    * @param board     The solved board
+    * @param reference The board whose filled cells the solved board must match
+    * @return The row-major index of the first wrong cell, or -1 if the board is
+    *         full, valid, and matches every filled cell of the reference
+    */
+   private static int findMismatch(Board board, Board reference) {
+      if (board.size != reference.size) {
+         return 0;
+      }
+      for (int r = 0; r < board.size; r++) {
+         for (int c = 0; c < board.size; c++) {
+            int value = board.getValue(r, c);
+            int expected = reference.getValue(r, c);
+            if (!board.isValidMove(r, c) || (expected != 0 && value != expected)) {
+               return r * board.size + c;
+            }
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * Describes a cell for a report
+    * 
+    * @param cell      The row-major index of the cell
+    * @param boardSize The size of the board's rows and columns
+    * @return The cell's row and column (counting from 1)
+    */
+   private static String describeCell(int cell, int boardSize) {
+      return "row " + (cell / boardSize + 1) + ", column " + (cell % boardSize + 1);
+   }
+
+   /**
+    * Reads the baseline
+    * 
+    * @param baselineFile The file that stores the baseline
+    * @return The baseline measurements by engine and board size (empty if the
+    *         file does not exist)
+    */
+   private static Properties loadBaseline(File baselineFile) {
+      Properties baseline = new Properties();
+      if (baselineFile.isFile()) {
+         try (InputStream in = new FileInputStream(baselineFile)) {
+            baseline.load(in);
+         } catch (IOException e) {
+            System.out.println("Error reading baseline.");
+            e.printStackTrace();
+         }
+      }
+      return baseline;
+   }
+
+   /**
+    * Writes the baseline
+    * 
+    * @param baselineFile The file that stores the baseline
+    * @param baseline     The measurements by engine and board size
+    */
+   private static void saveBaseline(File baselineFile, Properties baseline) {
+      try (OutputStream out = new FileOutputStream(baselineFile)) {
+         baseline.store(out, "Solve time per engine.boardSize as a multiple of the " + REFERENCE_ENGINE
+               + " time, and " + REFERENCE_ENGINE + " search nodes per boardSize");
+      } catch (IOException e) {
+         System.out.println("Error writing baseline.");
+         e.printStackTrace();
+      }
+   }
+
+   /**
+    * A puzzle and its answer key
+    */
+   private static class Case {
+      /**
+       * Creates a case
+       * 
+       * @param puzzleFile The puzzle file
+       * @param puzzle     The puzzle
+       * @param solution   The answer key (or null to only check validity)
+       */
+      public Case(File puzzleFile, Board puzzle, Board solution) {
+         this.puzzleFile = puzzleFile;
+         this.puzzle = puzzle;
+         this.solution = solution;
+      }
+
+      /** The puzzle file */
+      private File puzzleFile;
+      /** The puzzle */
+      private Board puzzle;
+      /** The answer key (or null to only check validity) */
+      private Board solution;
+   }
+
+   /**
+    * The results of an engine on the puzzles of one board size
+    */
+   private static class Measurement {
+      /** The sum of each puzzle's fastest time in nanoseconds */
+      private long nanos;
+      /** The number of search nodes visited in the first pass */
+      private long nodes;
+      /** The number of puzzles checked */
+      private int checked;
+      /** The number of wrong results */
+      private int wrong;
+   }
+}
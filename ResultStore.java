@@ -0,0 +1,387 @@
+
+/**
+ * Keeps the outcome of every finished solve in an append-only file, so later
+ * runs can skip puzzles that were already solved (or found unsolvable), even
+ * after a crash
+ * 
+ * The file starts with a header (magic number and format version), followed
+ * by one record per puzzle: the puzzle's 64-bit hash, the board size and the
+ * status in one byte each, the solution's cell values packed 5 bits each (for
+ * solved puzzles only), and a CRC-32 of the record. Records are only ever
+ * appended, and the index of hashes to records is rebuilt by memory-mapping
+ * the file when it is opened. A record cut short by a crash fails its check
+ * and is dropped, along with anything after it.
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+public class ResultStore implements AutoCloseable {
+   /** The number that identifies a result store file ("SDKR") */
+   public static final int MAGIC = 0x53444B52;
+   /** The version of the result store format */
+   public static final int VERSION = 1;
+   /** The size of the header in bytes */
+   public static final int HEADER_SIZE = 8;
+
+   /**
+    * Opens a result store, creating the file if it does not exist, and
+    * rebuilds its index
+    * 
+    * @param file The result store file
+    * @throws IOException if the file cannot be opened, is larger than 2 GB, or
+    *                     is not a result store
+    */
+   public ResultStore(File file) throws IOException {
+      this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+      try {
+         if (this.channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.flip();
+            this.write(header, 0);
+         }
+         if (this.channel.size() < HEADER_SIZE || this.channel.size() > Integer.MAX_VALUE) {
+            throw new IOException("Unsupported result store size: " + this.channel.size());
+         }
+         this.data = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, this.channel.size());
+         if (this.data.getInt(0) != MAGIC) {
+            throw new IOException("Not a result store: " + file.getPath());
+         }
+         if (this.data.getInt(4) != VERSION) {
+            throw new IOException("Unsupported result store version: " + this.data.getInt(4));
+         }
+         this.keys = new long[INITIAL_INDEX_CAPACITY];
+         this.offsets = new long[INITIAL_INDEX_CAPACITY];
+         this.end = this.rebuildIndex();
+         if (this.end < this.channel.size()) {
+            System.err.println("Dropping " + (this.channel.size() - this.end) + " damaged bytes from the end of "
+                  + file.getPath());
+            this.channel.truncate(this.end);
+            // the old mapping still covers the dropped bytes, which records appended later will overwrite
+            this.data = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, this.end);
+         }
+      } catch (IOException e) {
+         this.channel.close();
+         throw e;
+      }
+   }
+
+   /**
+    * Gets the key of a puzzle in the store
+    * 
+    * @param board The puzzle (before solving)
+    * @return A 64-bit hash of the board size and cell values
+    */
+   public static long hash(Board board) {
+      long hash = FNV_OFFSET ^ board.size;
+      for (int r = 0; r < board.size; r++) {
+         for (int c = 0; c < board.size; c++) {
+            hash = (hash ^ board.getValue(r, c)) * FNV_PRIME;
+         }
+      }
+      // spread the last cells' bits, since they only went through one multiply
+      hash ^= hash >>> 32;
+      return hash == EMPTY_KEY ? 1 : hash;
+   }
+
+   /**
+    * Looks up the outcome of a puzzle, filling in the board if it was solved
+    * 
+    * @param key   The key of the puzzle
+    * @param board The puzzle (filled in place if its solution is stored)
+    * @return The stored status (SOLVED or NO_SOLUTION), or null if the puzzle
+    *         is not in the store
+    * @throws IOException if the record cannot be read
+    */
+   public SolveStatus lookup(long key, Board board) throws IOException {
+      long offset;
+      synchronized (this) {
+         offset = this.find(key);
+      }
+      if (offset < 0) {
+         return null;
+      }
+      ByteBuffer record = this.read(offset);
+      if (record.get(RECORD_SIZE_OFFSET) != board.size) {
+         return null;
+      }
+      if (record.get(RECORD_STATUS_OFFSET) == NO_SOLUTION) {
+         return SolveStatus.NO_SOLUTION;
+      }
+
+      // a hash collision would show up as a solution that disagrees with the givens
+      Board solution = PuzzleCorpus.unpack(record, RECORD_VALUES_OFFSET, board.size);
+      for (int r = 0; r < board.size; r++) {
+         for (int c = 0; c < board.size; c++) {
+            int value = board.getValue(r, c);
+            if (value != 0 && value != solution.getValue(r, c)) {
+               return null;
+            }
+         }
+      }
+      if (!solution.isValid()) {
+         return null;
+      }
+      board.updateCells(solution);
+      return SolveStatus.SOLVED;
+   }
+
+   /**
+    * Appends the outcome of a finished solve (other statuses are not final, so
+    * they are not stored)
+    * 
+    * @param key      The key of the puzzle (from before it was solved)
+    * @param status   The status of the solve
+    * @param solution The solved board (only stored if the status is SOLVED
+    *                 and it is valid)
+    * @throws IOException if the record cannot be written
+    */
+   public synchronized void record(long key, SolveStatus status, Board solution) throws IOException {
+      boolean isSolved = status == SolveStatus.SOLVED;
+      if ((isSolved && !solution.isValid()) || (!isSolved && status != SolveStatus.NO_SOLUTION)
+            || this.find(key) >= 0) {
+         return;
+      }
+      int valuesSize = isSolved ? PuzzleCorpus.getPackedSize(solution.size * solution.size) : 0;
+      ByteBuffer record = ByteBuffer.allocate(RECORD_VALUES_OFFSET + valuesSize + Integer.BYTES);
+      record.putLong(key);
+      record.put((byte) solution.size);
+      record.put(isSolved ? SOLVED : NO_SOLUTION);
+      if (isSolved) {
+         PuzzleCorpus.pack(solution, record);
+      }
+      CRC32 checksum = new CRC32();
+      checksum.update(record.array(), 0, record.position());
+      record.putInt((int) checksum.getValue());
+      record.flip();
+
+      if (this.end + record.remaining() > Integer.MAX_VALUE) {
+         throw new IOException("Result store is full");
+      }
+      this.write(record, this.end);
+      this.index(key, this.end);
+      this.end += record.capacity();
+   }
+
+   /**
+    * Gets the number of puzzles in the store
+    * 
+    * @return The number of stored outcomes
+    */
+   public synchronized int count() {
+      return this.count;
+   }
+
+   /**
+    * Wraps an engine so its solves check the store first and append the
+    * outcomes they find to it (errors reading or writing the store are reported
+    * and the solve goes on without it)
+    * 
+    * @param engine The engine that solves puzzles missing from the store
+    * @return The storing engine
+    */
+   public SolverStrategy wrap(SolverStrategy engine) {
+      return (board, control) -> {
+         long key = hash(board);
+         try {
+            SolveStatus status = this.lookup(key, board);
+            if (status != null) {
+               return new SolveResult(status);
+            }
+         } catch (IOException e) {
+            System.err.println("Error reading result store: " + e.getMessage());
+         }
+         SolveResult result = engine.solve(board, control);
+         try {
+            this.record(key, result.getStatus(), board);
+         } catch (IOException e) {
+            System.err.println("Error writing result store: " + e.getMessage());
+         }
+         return result;
+      };
+   }
+
+   /**
+    * Flushes the appended records to the disk and closes the file
+    * 
+    * @throws IOException if the file cannot be written
+    */
+   @Override
+   public synchronized void close() throws IOException {
+      try {
+         this.channel.force(false);
+      } finally {
+         this.channel.close();
+      }
+   }
+
+   /** The status byte of a solved puzzle */
+   private static final byte SOLVED = 0;
+   /** The status byte of a puzzle with no solution */
+   private static final byte NO_SOLUTION = 1;
+   /** The index of the board size within a record */
+   private static final int RECORD_SIZE_OFFSET = Long.BYTES;
+   /** The index of the status within a record */
+   private static final int RECORD_STATUS_OFFSET = RECORD_SIZE_OFFSET + 1;
+   /** The index of the packed cell values within a record */
+   private static final int RECORD_VALUES_OFFSET = RECORD_STATUS_OFFSET + 1;
+   /** The largest supported board size */
+   private static final int MAX_BOARD_SIZE = PuzzleCorpus.MAX_BOARD_SIZE;
+   /** The number of slots the index starts with */
+   private static final int INITIAL_INDEX_CAPACITY = 1024;
+   /** The key that marks an empty index slot (never returned by hash()) */
+   private static final long EMPTY_KEY = 0;
+   /** The starting value of the FNV-1a hash */
+   private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+   /** The multiplier of the FNV-1a hash */
+   private static final long FNV_PRIME = 0x100000001B3L;
+   /** The result store file */
+   private FileChannel channel;
+   /** The file as it was when opened, mapped into memory */
+   private MappedByteBuffer data;
+   /** The key in each index slot (EMPTY_KEY for an empty slot) */
+   private long[] keys;
+   /** The file offset of the record in each index slot */
+   private long[] offsets;
+   /** The number of puzzles in the index */
+   private int count;
+   /** The file offset after the last record */
+   private long end;
+
+   /**
+    * Reads every record of the mapped file into the index, stopping at the
+    * first record that is cut short or fails its checksum
+    * 
+    * @return The file offset after the last good record
+    */
+   private long rebuildIndex() {
+      int position = HEADER_SIZE;
+      CRC32 checksum = new CRC32();
+      while (position + RECORD_VALUES_OFFSET + Integer.BYTES <= this.data.capacity()) {
+         int boardSize = this.data.get(position + RECORD_SIZE_OFFSET);
+         byte status = this.data.get(position + RECORD_STATUS_OFFSET);
+         if (boardSize < 1 || boardSize > MAX_BOARD_SIZE || (status != SOLVED && status != NO_SOLUTION)) {
+            break;
+         }
+         int valuesSize = status == SOLVED ? PuzzleCorpus.getPackedSize(boardSize * boardSize) : 0;
+         int recordSize = RECORD_VALUES_OFFSET + valuesSize + Integer.BYTES;
+         if (position + recordSize > this.data.capacity()) {
+            break;
+         }
+         checksum.reset();
+         ByteBuffer contents = this.data.slice(position, recordSize - Integer.BYTES);
+         checksum.update(contents);
+         if ((int) checksum.getValue() != this.data.getInt(position + recordSize - Integer.BYTES)) {
+            break;
+         }
+         long key = this.data.getLong(position);
+         if (this.find(key) < 0) {
+            this.index(key, position);
+         }
+         position += recordSize;
+      }
+      return position;
+   }
+
+   /**
+    * Finds the record of a key in the index
+    * 
+    * @param key The key of the puzzle
+    * @return The file offset of the record, or -1 if the key is not stored
+    */
+   private long find(long key) {
+      int mask = this.keys.length - 1;
+      for (int slot = getSlot(key, mask); this.keys[slot] != EMPTY_KEY; slot = (slot + 1) & mask) {
+         if (this.keys[slot] == key) {
+            return this.offsets[slot];
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * Adds a record to the index, growing it when it is half full
+    * 
+    * @param key    The key of the puzzle (not yet in the index)
+    * @param offset The file offset of the record
+    */
+   private void index(long key, long offset) {
+      if (2 * (this.count + 1) > this.keys.length) {
+         long[] oldKeys = this.keys;
+         long[] oldOffsets = this.offsets;
+         this.keys = new long[oldKeys.length * 2];
+         this.offsets = new long[oldKeys.length * 2];
+         this.count = 0;
+         for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+               this.index(oldKeys[i], oldOffsets[i]);
+            }
+         }
+      }
+      int mask = this.keys.length - 1;
+      int slot = getSlot(key, mask);
+      while (this.keys[slot] != EMPTY_KEY) {
+         slot = (slot + 1) & mask;
+      }
+      this.keys[slot] = key;
+      this.offsets[slot] = offset;
+      this.count++;
+   }
+
+   /**
+    * Gets the first index slot to probe for a key
+    * 
+    * @param key  The key of the puzzle
+    * @param mask The number of slots minus 1
+    * @return The slot
+    */
+   private static int getSlot(long key, int mask) {
+      return (int) (key ^ (key >>> 32)) & mask;
+   }
+
+   /**
+    * Reads a record, from the mapped file if it was there when the store was
+    * opened or from the file otherwise
+    * 
+    * @param offset The file offset of the record
+    * @return A buffer whose index 0 is the start of the record
+    * @throws IOException if the record cannot be read
+    */
+   private ByteBuffer read(long offset) throws IOException {
+      if (offset < this.data.capacity()) {
+         return this.data.slice((int) offset, this.data.capacity() - (int) offset);
+      }
+      ByteBuffer record = ByteBuffer.allocate(RECORD_VALUES_OFFSET
+            + PuzzleCorpus.getPackedSize(MAX_BOARD_SIZE * MAX_BOARD_SIZE) + Integer.BYTES);
+      while (record.hasRemaining()) {
+         if (this.channel.read(record, offset + record.position()) == -1) {
+            break;
+         }
+      }
+      return record;
+   }
+
+   /**
+    * Writes bytes to the file at an offset
+    * 
+    * @param bytes  The bytes to write
+    * @param offset The file offset to write them at
+    * @throws IOException if the bytes cannot be written
+    */
+   private void write(ByteBuffer bytes, long offset) throws IOException {
+      while (bytes.hasRemaining()) {
+         offset += this.channel.write(bytes, offset);
+      }
+   }
+}
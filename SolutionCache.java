@@ -0,0 +1,233 @@
+
+/**
+ * Remembers the solutions of solved puzzles by their canonical form, so
+ * repeated puzzles and their symmetric variants are answered without searching
+ * 
+ * The cache is split into segments, each a small least recently used map with
+ * its own lock, so solves on many threads rarely wait for each other.
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public class SolutionCache implements SolutionCacheMBean {
+   /**
+    * Creates an empty cache
+    * 
+    * @param capacity The largest number of solutions to keep (at least 1)
+    */
+   public SolutionCache(int capacity) {
+      this.capacity = capacity;
+      int segmentCount = Math.min(SEGMENT_COUNT, capacity);
+      this.segments = new Segment[segmentCount];
+      for (int i = 0; i < segmentCount; i++) {
+         // spread the capacity so the segments add up to it exactly
+         this.segments[i] = new Segment(capacity / segmentCount + (i < capacity % segmentCount ? 1 : 0));
+      }
+   }
+
+   /**
+    * Wraps an engine so its solves check the cache first and add the solutions
+    * they find to it
+    * 
+    * @param engine The engine that solves puzzles missing from the cache
+    * @return The caching engine
+    */
+   public SolverStrategy wrap(SolverStrategy engine) {
+      return (board, control) -> this.solve(board, engine, control);
+   }
+
+   /**
+    * Solves a board in place from the cache, or with an engine if the board's
+    * canonical form is not cached yet
+    * 
+    * @param board   The board to solve
+    * @param engine  The engine that solves puzzles missing from the cache
+    * @param control The control that can stop the engine's solve
+    * @return The result of the solve (a cached answer visits no search nodes)
+    */
+   public SolveResult solve(Board board, SolverStrategy engine, SolveControl control) {
+      if (!board.isConsistent()) {
+         return engine.solve(board, control);
+      }
+      CanonicalForm form = CanonicalForm.of(board);
+      Segment segment = this.getSegment(form.getKey());
+      byte[] solution = segment.get(form.getKey());
+      if (solution != null) {
+         this.hits.increment();
+         form.applyTo(board, solution);
+         return new SolveResult(SolveStatus.SOLVED);
+      }
+
+      this.misses.increment();
+      SolveResult result = engine.solve(board, control);
+      if (result.isSolved() && board.isValid()) {
+         if (segment.put(form.getKey(), form.toCanonical(board))) {
+            this.evictions.increment();
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Publishes the cache's counters through JMX (under
+    * "SudokuSolver:type=SolutionCache,name=<name>")
+    * 
+    * @param name The name that tells this cache apart from others
+    */
+   public void registerMBean(String name) {
+      try {
+         ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+               new ObjectName("SudokuSolver:type=SolutionCache,name=" + name));
+      } catch (JMException e) {
+         System.err.println("Cannot publish cache stats: " + e.getMessage());
+      }
+   }
+
+   @Override
+   public long getHitCount() {
+      return this.hits.sum();
+   }
+
+   @Override
+   public long getMissCount() {
+      return this.misses.sum();
+   }
+
+   @Override
+   public long getEvictionCount() {
+      return this.evictions.sum();
+   }
+
+   @Override
+   public double getHitRate() {
+      long hits = this.hits.sum();
+      long total = hits + this.misses.sum();
+      return total == 0 ? 0 : (double) hits / total;
+   }
+
+   @Override
+   public int getSize() {
+      int size = 0;
+      for (Segment segment : this.segments) {
+         size += segment.size();
+      }
+      return size;
+   }
+
+   @Override
+   public int getCapacity() {
+      return this.capacity;
+   }
+
+   @Override
+   public void clear() {
+      for (Segment segment : this.segments) {
+         segment.clear();
+      }
+   }
+
+   @Override
+   public String toString() {
+      return String.format("Cache: %d hits, %d misses (%.1f%% hit rate), %d evictions, %d of %d entries",
+            this.getHitCount(), this.getMissCount(), this.getHitRate() * 100, this.getEvictionCount(),
+            this.getSize(), this.capacity);
+   }
+
+   /** The largest number of segments */
+   private static final int SEGMENT_COUNT = 16;
+   /** The largest number of solutions to keep */
+   private int capacity;
+   /** The segments, chosen by the hash of the canonical form */
+   private Segment[] segments;
+   /** The number of solves answered from the cache */
+   private LongAdder hits = new LongAdder();
+   /** The number of solves that had to run an engine */
+   private LongAdder misses = new LongAdder();
+   /** The number of solutions dropped to make room */
+   private LongAdder evictions = new LongAdder();
+
+   /**
+    * Gets the segment that holds a canonical form
+    * 
+    * @param key The canonical form
+    * @return The segment
+    */
+   private Segment getSegment(String key) {
+      int hash = key.hashCode();
+      return this.segments[Math.floorMod(hash ^ (hash >>> 16), this.segments.length)];
+   }
+
+   /**
+    * A least recently used map of canonical forms to canonical solutions,
+    * guarded by its own lock
+    */
+   private static class Segment {
+      /**
+       * Creates an empty segment
+       * 
+       * @param capacity The largest number of solutions the segment keeps
+       */
+      public Segment(int capacity) {
+         this.capacity = capacity;
+         this.entries = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+      }
+
+      /**
+       * Gets a cached solution, marking it as the most recently used
+       * 
+       * @param key The canonical form
+       * @return The canonical solution, or null if it is not cached
+       */
+      public synchronized byte[] get(String key) {
+         return this.entries.get(key);
+      }
+
+      /**
+       * Caches a solution, dropping the least recently used one if the segment
+       * is full
+       * 
+       * @param key      The canonical form
+       * @param solution The canonical solution
+       * @return true if a solution was dropped (otherwise, false)
+       */
+      public synchronized boolean put(String key, byte[] solution) {
+         this.entries.put(key, solution);
+         if (this.entries.size() > this.capacity) {
+            Map.Entry<String, byte[]> eldest = this.entries.entrySet().iterator().next();
+            this.entries.remove(eldest.getKey());
+            return true;
+         }
+         return false;
+      }
+
+      /**
+       * Gets the number of cached solutions
+       * 
+       * @return The number of entries
+       */
+      public synchronized int size() {
+         return this.entries.size();
+      }
+
+      /**
+       * Removes every cached solution
+       */
+      public synchronized void clear() {
+         this.entries.clear();
+      }
+
+      /** The largest number of solutions the segment keeps */
+      private int capacity;
+      /** The cached solutions, from least to most recently used */
+      private LinkedHashMap<String, byte[]> entries;
+   }
+}
@@ -0,0 +1,56 @@
+
+/**
+ * The counters of a solution cache that are published through JMX
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+public interface SolutionCacheMBean {
+   /**
+    * Gets the number of solves answered from the cache
+    * 
+    * @return The number of hits
+    */
+   long getHitCount();
+
+   /**
+    * Gets the number of solves that had to run an engine
+    * 
+    * @return The number of misses
+    */
+   long getMissCount();
+
+   /**
+    * Gets the number of solutions dropped to make room for newer ones
+    * 
+    * @return The number of evictions
+    */
+   long getEvictionCount();
+
+   /**
+    * Gets the share of solves answered from the cache
+    * 
+    * @return The hit rate (0 to 1, or 0 if there were no solves)
+    */
+   double getHitRate();
+
+   /**
+    * Gets the number of cached solutions
+    * 
+    * @return The number of entries
+    */
+   int getSize();
+
+   /**
+    * Gets the largest number of solutions the cache holds
+    * 
+    * @return The capacity
+    */
+   int getCapacity();
+
+   /**
+    * Removes every cached solution (the counters are kept)
+    */
+   void clear();
+}
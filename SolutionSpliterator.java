@@ -0,0 +1,123 @@
+
+/**
+ * Enumerates the solutions of a board one at a time, depth first, keeping only
+ * the unexplored branches of the search in memory
+ * 
+ * Splitting hands the shallowest unexplored branches (the largest subtrees)
+ * to a new spliterator, so parallel streams divide the search tree between
+ * threads.
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.util.ArrayDeque;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+public class SolutionSpliterator implements Spliterator<Board> {
+   /**
+    * Creates a spliterator over the solutions of a board
+    * 
+    * @param board The board whose solutions are enumerated (left unchanged)
+    */
+   public SolutionSpliterator(Board board) {
+      this.branches = new ArrayDeque<Board>();
+      if (board.isConsistent()) {
+         this.branches.push(new Board(board));
+      }
+   }
+
+   @Override
+   public boolean tryAdvance(Consumer<? super Board> action) {
+      while (!this.branches.isEmpty()) {
+         Board board = this.branches.pop();
+         if (this.expand(board)) {
+            action.accept(board);
+            return true;
+         }
+      }
+      return false;
+   }
+
+   @Override
+   public Spliterator<Board> trySplit() {
+      // expand forced moves until there is more than one branch to share
+      while (this.branches.size() == 1) {
+         Board board = this.branches.pop();
+         if (this.expand(board)) {
+            this.branches.push(board);
+            return null;
+         }
+      }
+      if (this.branches.size() < 2) {
+         return null;
+      }
+      SolutionSpliterator split = new SolutionSpliterator();
+      for (int i = this.branches.size() / 2; i > 0; i--) {
+         split.branches.addFirst(this.branches.removeLast());
+      }
+      return split;
+   }
+
+   @Override
+   public long estimateSize() {
+      return this.branches.isEmpty() ? 0 : Long.MAX_VALUE;
+   }
+
+   @Override
+   public int characteristics() {
+      return Spliterator.NONNULL;
+   }
+
+   /**
+    * The unexplored branches, each a partially filled board, with the next
+    * branch to explore on top
+    */
+   private ArrayDeque<Board> branches;
+
+   /**
+    * Creates a spliterator with no branches (used when splitting)
+    */
+   private SolutionSpliterator() {
+      this.branches = new ArrayDeque<Board>();
+   }
+
+   /**
+    * Pushes the branches below a partially filled board, one for each
+    * candidate of the empty cell with the fewest candidates
+    * 
+    * @param board The board to expand (reused as its last branch)
+    * @return true if the board is already solved (otherwise, false)
+    */
+   private boolean expand(Board board) {
+      int size = board.size;
+      int bestCell = -1;
+      int bestCount = Integer.MAX_VALUE;
+      for (int cell = 0; cell < size * size && bestCount > 1; cell++) {
+         if (board.getValue(cell / size, cell % size) == 0) {
+            int count = Integer.bitCount(board.getCandidates(cell / size, cell % size));
+            if (count < bestCount) {
+               bestCell = cell;
+               bestCount = count;
+            }
+         }
+      }
+      if (bestCell == -1) {
+         return true;
+      }
+
+      // push the highest value first so the lowest value is explored first
+      int row = bestCell / size;
+      int col = bestCell % size;
+      int candidates = board.getCandidates(row, col);
+      while (candidates != 0) {
+         int value = 32 - Integer.numberOfLeadingZeros(candidates);
+         candidates &= ~(1 << (value - 1));
+         Board branch = candidates == 0 ? board : new Board(board);
+         branch.setValue(row, col, value);
+         this.branches.push(branch);
+      }
+      return false;
+   }
+}
@@ -0,0 +1,235 @@
+
+/**
+ * Lets a running solve be stopped from another thread, bounds it with a time
+ * limit and a node limit, and lets other threads follow its progress
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SolveControl {
+   /**
+    * Creates a control for one of several solves racing on the same board,
+    * which can be cancelled on its own but also stops when this control is
+    * cancelled, and shares this control's limits, progress, and partial boards
+    * 
+    * @return The child control
+    */
+   public SolveControl createChild() {
+      SolveControl child = new SolveControl();
+      child.parent = this;
+      return child;
+   }
+
+   /**
+    * Asks every solve that uses this control to stop as soon as possible
+    */
+   public void cancel() {
+      this.cancelled = true;
+   }
+
+   /**
+    * Checks if the solves that use this control have been asked to stop
+    * 
+    * @return true if cancel() has been called or a limit was reached
+    *         (otherwise, false)
+    */
+   public boolean isCancelled() {
+      return this.cancelled || (this.parent != null && this.parent.isCancelled());
+   }
+
+   /**
+    * Limits the time the next solve can take, counting from when it starts
+    * 
+    * @param millis The time limit in milliseconds (0 for no limit)
+    */
+   public void setTimeLimit(long millis) {
+      this.timeLimitMillis = millis;
+   }
+
+   /**
+    * Limits the number of search nodes the solves can visit (checked by each
+    * solver at every node, and across all solvers every PROGRESS_INTERVAL
+    * nodes)
+    * 
+    * @param nodes The node limit (0 for no limit)
+    */
+   public void setNodeLimit(long nodes) {
+      this.nodeLimit = nodes > 0 ? nodes : Long.MAX_VALUE;
+   }
+
+   /**
+    * Checks if the solve has a time limit or a node limit
+    * 
+    * @return true if a limit is set (otherwise, false)
+    */
+   public boolean hasLimit() {
+      if (this.parent != null) {
+         return this.parent.hasLimit();
+      }
+      return this.timeLimitMillis > 0 || this.nodeLimit != Long.MAX_VALUE;
+   }
+
+   /**
+    * Checks if the solves were stopped because a limit was reached
+    * 
+    * @return true if the time limit or the node limit was reached (otherwise,
+    *         false)
+    */
+   public boolean isTimedOut() {
+      return this.parent != null ? this.parent.isTimedOut() : this.timedOut;
+   }
+
+   /**
+    * Starts the time limit, if one is set (called by the registry when a solve
+    * starts, and must be followed by a call to finish())
+    */
+   public synchronized void start() {
+      if (this.timeLimitMillis > 0 && this.timer == null && !this.cancelled) {
+         this.timer = TimerHolder.TIMER.schedule(this::expire, this.timeLimitMillis, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   /**
+    * Stops the time limit, so the timer keeps no reference to the finished
+    * solve
+    */
+   public synchronized void finish() {
+      if (this.timer != null) {
+         this.timer.cancel(false);
+         this.timer = null;
+      }
+   }
+
+   /**
+    * Reports the progress of a solve and checks if it has to stop (called by
+    * solvers at every search node, with the progress shared every
+    * PROGRESS_INTERVAL nodes to keep the cost low)
+    * 
+    * @param nodesVisited The number of search nodes the calling solver has
+    *                     visited so far
+    * @return true if the solve should stop (otherwise, false)
+    */
+   public boolean checkpoint(long nodesVisited) {
+      if (this.parent != null) {
+         return this.parent.checkpoint(nodesVisited) || this.cancelled;
+      }
+      if (nodesVisited % PROGRESS_INTERVAL == 0) {
+         if (this.nodesVisited.addAndGet(PROGRESS_INTERVAL) > this.nodeLimit) {
+            this.expire();
+         }
+      }
+      if (nodesVisited > this.nodeLimit) {
+         this.expire();
+      }
+      return this.cancelled;
+   }
+
+   /**
+    * Gets the approximate number of search nodes visited by every solve that
+    * uses this control
+    * 
+    * @return The number of nodes visited, rounded down to a multiple of
+    *         PROGRESS_INTERVAL per solver
+    */
+   public long getNodesVisited() {
+      return this.parent != null ? this.parent.getNodesVisited() : this.nodesVisited.get();
+   }
+
+   /**
+    * Checks if a partial board would be more filled than the best one offered
+    * so far, so solvers only copy their boards when it is worth it (partial
+    * boards are only kept when a limit is set)
+    * 
+    * @param filledCount The number of filled cells of the partial board
+    * @return true if the board should be offered (otherwise, false)
+    */
+   public boolean isBetterPartial(int filledCount) {
+      if (this.parent != null) {
+         return this.parent.isBetterPartial(filledCount);
+      }
+      return filledCount > this.bestFilledCount && this.hasLimit();
+   }
+
+   /**
+    * Offers a consistent partial board reached by a search, keeping it if it
+    * is more filled than the best one so far
+    * 
+    * @param board The partial board (no longer changed by the solver)
+    */
+   public synchronized void offerPartial(Board board) {
+      if (this.parent != null) {
+         this.parent.offerPartial(board);
+      } else if (board.getFilledCount() > this.bestFilledCount) {
+         this.bestPartial = board;
+         this.bestFilledCount = board.getFilledCount();
+      }
+   }
+
+   /**
+    * Gets the most filled consistent board reached by the searches
+    * 
+    * @return The best partial board, or null if none was offered
+    */
+   public synchronized Board getBestPartial() {
+      return this.parent != null ? this.parent.getBestPartial() : this.bestPartial;
+   }
+
+   /** The number of search nodes between progress reports */
+   private static final int PROGRESS_INTERVAL = 1024;
+   /** The control whose cancellation, limits, and progress are shared (or null) */
+   private SolveControl parent;
+   /** Whether the solves that use this control have been asked to stop */
+   private volatile boolean cancelled;
+   /** Whether the solves were stopped by a limit */
+   private volatile boolean timedOut;
+   /** The number of search nodes reported so far */
+   private AtomicLong nodesVisited = new AtomicLong();
+   /** The time limit in milliseconds (0 for no limit) */
+   private long timeLimitMillis;
+   /** The node limit (Long.MAX_VALUE for no limit) */
+   private long nodeLimit = Long.MAX_VALUE;
+   /** The pending expiry of the time limit (or null) */
+   private ScheduledFuture<?> timer;
+   /** The most filled consistent board offered so far (or null) */
+   private Board bestPartial;
+   /** The number of filled cells of the best partial board */
+   private volatile int bestFilledCount = -1;
+
+   /**
+    * Stops the solves because a limit was reached
+    */
+   private void expire() {
+      this.timedOut = true;
+      this.cancelled = true;
+   }
+
+   /**
+    * Creates the timer thread the first time a time limit is used
+    */
+   private static class TimerHolder {
+      /** The daemon thread that stops solves when their time limits expire */
+      private static final ScheduledThreadPoolExecutor TIMER = createTimer();
+
+      /**
+       * Creates the timer, which drops cancelled limits right away so finished
+       * solves are not kept in memory until their deadlines
+       * 
+       * @return The timer
+       */
+      private static ScheduledThreadPoolExecutor createTimer() {
+         ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "solve-timer");
+            thread.setDaemon(true);
+            return thread;
+         });
+         timer.setRemoveOnCancelPolicy(true);
+         return timer;
+      }
+   }
+}
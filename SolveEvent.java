@@ -0,0 +1,114 @@
+
+/**
+ * A JDK Flight Recorder event for one solve, from the puzzle given to the
+ * engine to the outcome and the work the search did, so a slow solve in a
+ * recording can be tied back to its puzzle (the search events of the solve are
+ * recorded on the same thread within its duration)
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("sudoku.Solve")
+@Label("Solve")
+@Category("Sudoku")
+@Description("A puzzle solved by one engine")
+@StackTrace(false)
+public class SolveEvent extends Event {
+   /**
+    * Checks if any of the per-node search events (branches, backtracks, and
+    * propagation) are being recorded, so engines can skip creating them
+    * entirely when recording is off
+    * 
+    * @return true if a search event is enabled in a running recording
+    *         (otherwise, false)
+    */
+   public static boolean isSearchRecorded() {
+      return BranchEvent.isRecording() || BacktrackEvent.isRecording() || PropagationEvent.isRecording();
+   }
+
+   /**
+    * Starts timing a solve and, if the event is recorded, captures the puzzle
+    * before the engine fills it in
+    * 
+    * @param board The board about to be solved
+    */
+   public void start(Board board) {
+      this.begin();
+      if (this.isEnabled()) {
+         this.boardSize = board.size;
+         this.givens = board.getFilledCount();
+         this.puzzle = board.toLine();
+      }
+   }
+
+   /**
+    * Records the outcome of the solve, if the event is enabled and lasted
+    * longer than the recording's threshold
+    * 
+    * @param engine The name of the engine that ran the solve
+    * @param result The result of the solve
+    */
+   public void finish(String engine, SolveResult result) {
+      this.end();
+      if (this.shouldCommit()) {
+         SolveMetrics metrics = result.getMetrics();
+         this.engine = engine;
+         this.status = result.getStatus().toString();
+         this.boardsVisited = metrics.getBoardsVisited();
+         this.guesses = metrics.getGuesses();
+         this.backtracks = metrics.getBacktracks();
+         this.propagations = metrics.getPropagations();
+         this.peakDepth = metrics.getPeakDepth();
+         this.peakFrontier = metrics.getPeakFrontier();
+         this.allocatedBytes = metrics.getAllocatedBytes();
+         this.commit();
+      }
+   }
+
+   /** The name of the engine */
+   @Label("Engine")
+   private String engine;
+   /** The size of the board's rows and columns */
+   @Label("Board Size")
+   private int boardSize;
+   /** The number of filled cells before solving */
+   @Label("Givens")
+   private int givens;
+   /** The puzzle as one line of puzzle file characters */
+   @Label("Puzzle")
+   private String puzzle;
+   /** The outcome of the solve */
+   @Label("Status")
+   private String status;
+   /** The number of search nodes visited */
+   @Label("Boards Visited")
+   private long boardsVisited;
+   /** The number of guesses made */
+   @Label("Guesses")
+   private long guesses;
+   /** The number of guesses undone */
+   @Label("Backtracks")
+   private long backtracks;
+   /** The number of constraint propagation rounds */
+   @Label("Propagations")
+   private long propagations;
+   /** The deepest search path */
+   @Label("Peak Depth")
+   private int peakDepth;
+   /** The largest number of branches waiting to be explored */
+   @Label("Peak Frontier")
+   private long peakFrontier;
+   /** The estimated memory allocated by the solve */
+   @Label("Allocated")
+   @DataAmount
+   private long allocatedBytes;
+}
@@ -0,0 +1,273 @@
+
+/**
+ * Counts the work done by a single solve (the counters are plain fields, since
+ * each solve updates its own metrics from one thread)
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+public class SolveMetrics {
+   /**
+    * Records that a board (search node) was visited
+    */
+   public void countBoardVisited() {
+      this.boardsVisited++;
+   }
+
+   /**
+    * Records that a value was guessed for a cell
+    */
+   public void countGuess() {
+      this.guesses++;
+   }
+
+   /**
+    * Records that a guess was undone
+    */
+   public void countBacktrack() {
+      this.backtracks++;
+   }
+
+   /**
+    * Records that a round of constraint propagation was run
+    */
+   public void countPropagation() {
+      this.propagations++;
+   }
+
+   /**
+    * Records that the search reached a depth, keeping the deepest one
+    * 
+    * @param depth The number of guesses on the current search path
+    */
+   public void enterDepth(int depth) {
+      if (depth > this.peakDepth) {
+         this.peakDepth = depth;
+      }
+   }
+
+   /**
+    * Records that branches were added to the frontier (the branches waiting to
+    * be explored), keeping the largest frontier
+    * 
+    * @param count The number of branches added
+    */
+   public void openBranches(int count) {
+      this.frontier += count;
+      if (this.frontier > this.peakFrontier) {
+         this.peakFrontier = this.frontier;
+      }
+   }
+
+   /**
+    * Records that a branch was taken from the frontier to be explored
+    */
+   public void closeBranch() {
+      this.frontier--;
+   }
+
+   /**
+    * Records memory allocated by the solve
+    * 
+    * @param bytes The number of bytes allocated
+    */
+   public void addAllocatedBytes(long bytes) {
+      this.allocatedBytes += bytes;
+   }
+
+   /**
+    * Records time spent searching (as opposed to setting up the search)
+    * 
+    * @param nanos The number of nanoseconds spent searching
+    */
+   public void addSearchNanos(long nanos) {
+      this.searchNanos += nanos;
+   }
+
+   /**
+    * Sets the total time of the solve, including setup and search
+    * 
+    * @param nanos The number of nanoseconds the solve took
+    */
+   public void setTotalNanos(long nanos) {
+      this.totalNanos = nanos;
+   }
+
+   /**
+    * Adds the counters of another solve (like a subtree searched by another
+    * thread) to these, keeping the larger peaks (times are not added, since the
+    * solves may have overlapped)
+    * 
+    * @param other The metrics to add
+    */
+   public void add(SolveMetrics other) {
+      this.boardsVisited += other.boardsVisited;
+      this.guesses += other.guesses;
+      this.backtracks += other.backtracks;
+      this.propagations += other.propagations;
+      this.allocatedBytes += other.allocatedBytes;
+      this.peakDepth = Math.max(this.peakDepth, other.peakDepth);
+      this.peakFrontier = Math.max(this.peakFrontier, other.peakFrontier);
+   }
+
+   /**
+    * Gets the number of boards visited
+    * 
+    * @return The number of boards visited
+    */
+   public long getBoardsVisited() {
+      return this.boardsVisited;
+   }
+
+   /**
+    * Gets the number of guesses made
+    * 
+    * @return The number of guesses made
+    */
+   public long getGuesses() {
+      return this.guesses;
+   }
+
+   /**
+    * Gets the number of guesses undone
+    * 
+    * @return The number of guesses undone
+    */
+   public long getBacktracks() {
+      return this.backtracks;
+   }
+
+   /**
+    * Gets the number of constraint propagation rounds run
+    * 
+    * @return The number of propagation rounds
+    */
+   public long getPropagations() {
+      return this.propagations;
+   }
+
+   /**
+    * Gets the deepest search path
+    * 
+    * @return The largest number of guesses on one search path
+    */
+   public int getPeakDepth() {
+      return this.peakDepth;
+   }
+
+   /**
+    * Gets the largest frontier
+    * 
+    * @return The largest number of branches waiting to be explored at once
+    */
+   public long getPeakFrontier() {
+      return this.peakFrontier;
+   }
+
+   /**
+    * Gets the estimated memory allocated by the solve
+    * 
+    * @return The number of bytes allocated (0 if the JVM cannot measure it)
+    */
+   public long getAllocatedBytes() {
+      return this.allocatedBytes;
+   }
+
+   /**
+    * Gets the time spent setting up the search, like building the engine's
+    * data structures from the board
+    * 
+    * @return The number of nanoseconds spent before searching
+    */
+   public long getSetupNanos() {
+      return Math.max(0, this.totalNanos - this.searchNanos);
+   }
+
+   /**
+    * Gets the time spent searching
+    * 
+    * @return The number of nanoseconds spent searching
+    */
+   public long getSearchNanos() {
+      return this.searchNanos;
+   }
+
+   /**
+    * Gets the total time of the solve
+    * 
+    * @return The number of nanoseconds the solve took
+    */
+   public long getTotalNanos() {
+      return this.totalNanos;
+   }
+
+   /**
+    * Gets the number of bytes the current thread has allocated so far, for
+    * estimating the allocations of a solve
+    * 
+    * @return The number of bytes, or -1 if the JVM cannot measure it
+    */
+   public static long getThreadAllocatedBytes() {
+      if (THREADS == null) {
+         return -1;
+      }
+      return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+   }
+
+   @Override
+   public String toString() {
+      return "Boards visited: " + this.boardsVisited
+            + ", guesses: " + this.guesses
+            + ", backtracks: " + this.backtracks
+            + ", propagations: " + this.propagations
+            + ", peak depth: " + this.peakDepth
+            + ", peak frontier: " + this.peakFrontier
+            + ", allocated: " + this.allocatedBytes / 1024 + " KB"
+            + String.format(", setup: %.3f ms, search: %.3f ms", this.getSetupNanos() / 1e6,
+                  this.searchNanos / 1e6);
+   }
+
+   /** The number of boards visited */
+   private long boardsVisited;
+   /** The number of guesses made */
+   private long guesses;
+   /** The number of guesses undone */
+   private long backtracks;
+   /** The number of constraint propagation rounds run */
+   private long propagations;
+   /** The largest number of guesses on one search path */
+   private int peakDepth;
+   /** The number of branches waiting to be explored */
+   private long frontier;
+   /** The largest number of branches waiting to be explored at once */
+   private long peakFrontier;
+   /** The estimated number of bytes allocated */
+   private long allocatedBytes;
+   /** The number of nanoseconds spent searching */
+   private long searchNanos;
+   /** The number of nanoseconds the solve took */
+   private long totalNanos;
+
+   /** The JVM's per-thread allocation counters (null if unsupported) */
+   private static final com.sun.management.ThreadMXBean THREADS = createThreadBean();
+
+   /**
+    * Gets the JVM's per-thread allocation counters, if it has them
+    * 
+    * @return The thread bean, or null if allocations cannot be measured
+    */
+   private static com.sun.management.ThreadMXBean createThreadBean() {
+      ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean) {
+         com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+         if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads;
+         }
+      }
+      return null;
+   }
+}
@@ -0,0 +1,101 @@
+
+/**
+ * The result of solving a board with a solving engine
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+public class SolveResult {
+   /**
+    * Creates a result
+    * 
+    * @param status The outcome of the solve
+    */
+   public SolveResult(SolveStatus status) {
+      this(status, new SolveMetrics());
+   }
+
+   /**
+    * Creates a result with the work done by the solve
+    * 
+    * @param status  The outcome of the solve
+    * @param metrics The counters of the solve
+    */
+   public SolveResult(SolveStatus status, SolveMetrics metrics) {
+      this.status = status;
+      this.metrics = metrics;
+   }
+
+   /**
+    * Creates the result of a solve from whether it succeeded and whether it was
+    * stopped
+    * 
+    * @param isSolved Whether the board was solved
+    * @param control  The control the solve ran with
+    * @param metrics  The counters of the solve
+    * @return The result with the matching status
+    */
+   public static SolveResult of(boolean isSolved, SolveControl control, SolveMetrics metrics) {
+      if (isSolved) {
+         return new SolveResult(SolveStatus.SOLVED, metrics);
+      }
+      if (!control.isCancelled()) {
+         return new SolveResult(SolveStatus.NO_SOLUTION, metrics);
+      }
+      SolveResult result = new SolveResult(control.isTimedOut() ? SolveStatus.TIMED_OUT : SolveStatus.CANCELLED,
+            metrics);
+      result.partialBoard = control.getBestPartial();
+      return result;
+   }
+
+   /**
+    * Gets the outcome of the solve
+    * 
+    * @return The status of the solve
+    */
+   public SolveStatus getStatus() {
+      return this.status;
+   }
+
+   /**
+    * Checks if the board was solved
+    * 
+    * @return true if the status is SOLVED (otherwise, false)
+    */
+   public boolean isSolved() {
+      return this.status == SolveStatus.SOLVED;
+   }
+
+   /**
+    * Gets the work done by the solve
+    * 
+    * @return The counters of the solve
+    */
+   public SolveMetrics getMetrics() {
+      return this.metrics;
+   }
+
+   /**
+    * Gets the most filled consistent board the search reached before it was
+    * stopped, as a best-effort answer when a limit was reached
+    * 
+    * @return The partial board, or null if the solve finished or no partial
+    *         board was kept (they are only kept when a limit is set)
+    */
+   public Board getPartialBoard() {
+      return this.partialBoard;
+   }
+
+   @Override
+   public String toString() {
+      return this.status.toString();
+   }
+
+   /** The outcome of the solve */
+   private SolveStatus status;
+   /** The counters of the solve */
+   private SolveMetrics metrics;
+   /** The most filled consistent board reached before the solve stopped (or null) */
+   private Board partialBoard;
+}
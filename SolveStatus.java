@@ -0,0 +1,18 @@
+
+/**
+ * The outcome of a solve
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+public enum SolveStatus {
+   /** The board was solved */
+   SOLVED,
+   /** The board has no solution (including when its given values conflict) */
+   NO_SOLUTION,
+   /** The solve was stopped before it finished */
+   CANCELLED,
+   /** The solve reached its time limit or node limit before it finished */
+   TIMED_OUT
+}
@@ -0,0 +1,253 @@
+
+/**
+ * Keeps track of the available solving engines and which engine each board
+ * size uses by default
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class SolverRegistry {
+   /** The name that selects the default engine for the board's size */
+   public static final String AUTO = "auto";
+   /** The name of the queue-based solver built into Board */
+   public static final String BFS = "bfs";
+   /** The name of the in-place backtracking solver */
+   public static final String BACKTRACKING = "backtracking";
+   /** The name of the Dancing Links solver */
+   public static final String DANCING_LINKS = "dlx";
+   /** The name of the constraint propagation solver */
+   public static final String PROPAGATION = "propagation";
+   /** The name of the fork/join parallel propagation solver */
+   public static final String PARALLEL = "parallel";
+   /** The name of the propagation solver with randomized restarts */
+   public static final String RESTARTS = "restarts";
+   /** The name of the solver that races several engines */
+   public static final String PORTFOLIO = "portfolio";
+
+   /**
+    * Gets an engine by name
+    * 
+    * @param name      The name of the engine (or AUTO)
+    * @param boardSize The size of the board the engine will solve
+    * @return The engine, or null if no engine has that name
+    */
+   public static SolverStrategy get(String name, int boardSize) {
+      return STRATEGIES.get(resolveName(name, boardSize));
+   }
+
+   /**
+    * Resolves AUTO to the name of the default engine for a board size
+    * 
+    * @param name      The name of the engine (or AUTO)
+    * @param boardSize The size of the board the engine will solve
+    * @return The name of the engine that will be used
+    */
+   public static String resolveName(String name, int boardSize) {
+      if (AUTO.equals(name)) {
+         return DEFAULT_ENGINES.getOrDefault(boardSize, PROPAGATION);
+      }
+      return name;
+   }
+
+   /**
+    * Counts the solutions of a board with the fastest counting engine for its
+    * size, stopping as soon as the limit is reached
+    * 
+    * @param board The board (left unchanged)
+    * @param limit The largest count of interest (at least 1)
+    * @return The number of solutions, or the limit if there are at least that
+    *         many
+    */
+   public static int countSolutions(Board board, int limit) {
+      if (DANCING_LINKS.equals(resolveName(AUTO, board.size))) {
+         DancingLinksSolver solver = DancingLinksSolver.borrow(board.size);
+         try {
+            return solver.countSolutions(board, limit);
+         } finally {
+            solver.release();
+         }
+      }
+      return new PropagationSolver(board).countSolutions(limit);
+   }
+
+   /**
+    * Gets the totals of every solve run by an engine
+    * 
+    * @param name The name of the engine
+    * @return The engine's totals, or null if no engine has that name
+    */
+   public static SolverStats getStats(String name) {
+      return STATS.get(name);
+   }
+
+   /**
+    * Gets the portfolio that the PORTFOLIO engine races engines with
+    * 
+    * @return The portfolio, with the win counts of its races so far
+    */
+   public static PortfolioSolver getPortfolio() {
+      return PORTFOLIO_SOLVER;
+   }
+
+   /**
+    * Publishes the totals of every engine through JMX (under
+    * "SudokuSolver:type=SolverStats,engine=<name>"), so long-running processes
+    * can be monitored without a profiler (later calls do nothing)
+    */
+   public static synchronized void registerMBeans() {
+      if (areMBeansRegistered) {
+         return;
+      }
+      areMBeansRegistered = true;
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      for (SolverStats stats : STATS.values()) {
+         try {
+            server.registerMBean(stats, new ObjectName(MBEAN_DOMAIN + ":type=SolverStats,engine="
+                  + stats.getEngineName()));
+         } catch (JMException e) {
+            System.err.println("Cannot publish solver stats: " + e.getMessage());
+         }
+      }
+   }
+
+   /**
+    * Gets the names of all registered engines
+    * 
+    * @return The engine names in registration order
+    */
+   public static List<String> getNames() {
+      return new ArrayList<String>(STRATEGIES.keySet());
+   }
+
+   /**
+    * Gets the largest board size an engine finishes the bundled puzzles of in
+    * reasonable time
+    * 
+    * @param name The name of the engine (or AUTO)
+    * @return The largest board size
+    */
+   public static int getMaxBoardSize(String name) {
+      return MAX_BOARD_SIZES.getOrDefault(name, PuzzleCorpus.MAX_BOARD_SIZE);
+   }
+
+   /**
+    * Checks if an engine name can be used
+    * 
+    * @param name The name of the engine
+    * @return true if the name is AUTO or a registered engine (otherwise, false)
+    */
+   public static boolean isKnown(String name) {
+      return AUTO.equals(name) || STRATEGIES.containsKey(name);
+   }
+
+   /** The JMX domain that the engine totals are published under */
+   private static final String MBEAN_DOMAIN = "SudokuSolver";
+   /** The registered engines by name */
+   private static final Map<String, SolverStrategy> STRATEGIES = new LinkedHashMap<String, SolverStrategy>();
+   /** The totals of each registered engine by name */
+   private static final Map<String, SolverStats> STATS = new LinkedHashMap<String, SolverStats>();
+   /** The default engine name for each board size */
+   private static final Map<Integer, String> DEFAULT_ENGINES = Map.of(
+         4, PROPAGATION,
+         9, DANCING_LINKS,
+         16, DANCING_LINKS,
+         25, DANCING_LINKS);
+   /** The largest board size of each engine that does not finish the largest bundled puzzles */
+   private static final Map<String, Integer> MAX_BOARD_SIZES = Map.of(
+         BFS, 9,
+         BACKTRACKING, 16);
+   /** The engines raced by the PORTFOLIO engine (BFS and PARALLEL would compete for memory and threads) */
+   private static final PortfolioSolver PORTFOLIO_SOLVER = new PortfolioSolver(
+         List.of(BACKTRACKING, PROPAGATION, DANCING_LINKS, RESTARTS));
+   /** Whether the engine totals have been published through JMX */
+   private static boolean areMBeansRegistered;
+
+   static {
+      register(BFS, (board, control) -> {
+         SolveMetrics metrics = new SolveMetrics();
+         Board solution = board.solveDFS(control, metrics);
+         boolean isSolved = solution.isValid();
+         if (isSolved) {
+            board.updateCells(solution);
+         }
+         return SolveResult.of(isSolved, control, metrics);
+      });
+      register(BACKTRACKING, (board, control) -> {
+         BacktrackingSolver solver = new BacktrackingSolver(board);
+         solver.setControl(control);
+         return SolveResult.of(solver.solve(), control, solver.getMetrics());
+      });
+      register(DANCING_LINKS, (board, control) -> {
+         DancingLinksSolver solver = DancingLinksSolver.borrow(board.size);
+         try {
+            boolean isSolved = solver.solve(board, control);
+            return SolveResult.of(isSolved, control, solver.getMetrics());
+         } finally {
+            solver.release();
+         }
+      });
+      register(PROPAGATION, (board, control) -> {
+         PropagationSolver solver = new PropagationSolver(board);
+         solver.setControl(control);
+         return SolveResult.of(solver.solve(), control, solver.getMetrics());
+      });
+      register(PARALLEL, (board, control) -> {
+         ParallelSolver solver = new ParallelSolver(board);
+         solver.setControl(control);
+         return SolveResult.of(solver.solve(), control, solver.getMetrics());
+      });
+      register(RESTARTS, (board, control) -> {
+         PropagationSolver solver = new PropagationSolver(board);
+         solver.setControl(control);
+         boolean isSolved = solver.solveWithRestarts(ThreadLocalRandom.current());
+         return SolveResult.of(isSolved, control, solver.getMetrics());
+      });
+      register(PORTFOLIO, PORTFOLIO_SOLVER::solve);
+   }
+
+   /**
+    * Registers an engine, starting the time limit of each of its solves, timing
+    * them, estimating the memory they allocate on the calling thread, adding
+    * them to the engine's totals, and recording them as flight recorder events
+    * 
+    * @param name   The name of the engine
+    * @param engine The engine
+    */
+   private static void register(String name, SolverStrategy engine) {
+      SolverStats stats = new SolverStats(name);
+      STATS.put(name, stats);
+      STRATEGIES.put(name, (board, control) -> {
+         SolveEvent event = new SolveEvent();
+         event.start(board);
+         long allocationStart = SolveMetrics.getThreadAllocatedBytes();
+         long startTime = System.nanoTime();
+         SolveResult result;
+         control.start();
+         try {
+            result = engine.solve(board, control);
+         } finally {
+            control.finish();
+         }
+         SolveMetrics metrics = result.getMetrics();
+         metrics.setTotalNanos(System.nanoTime() - startTime);
+         if (allocationStart >= 0) {
+            metrics.addAllocatedBytes(SolveMetrics.getThreadAllocatedBytes() - allocationStart);
+         }
+         stats.record(result);
+         event.finish(name, result);
+         return result;
+      });
+   }
+}
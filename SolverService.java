@@ -0,0 +1,581 @@
+
+/**
+ * Solves puzzles sent over HTTP by other processes on the same host
+ * 
+ * POST /solve with puzzles in the body as text: boards with one row per line
+ * (like puzzle files), or one puzzle per line (like 81 characters for 9x9).
+ * The optional engine query parameter selects the engine (like
+ * /solve?engine=dlx), and format=lines reads every line as one puzzle. The
+ * response has one line per puzzle, in order: the status, the board (solved,
+ * or as far as the solve got), and the solve metrics, separated by tabs. A
+ * puzzle whose engine failed has the status ERROR and the error message
+ * instead of the metrics.
+ * 
+ * Each request runs on its own thread (a virtual thread when the JVM has them)
+ * and hands its puzzles to a fixed pool of solver threads. Each solver thread
+ * takes its share of the puzzles that queued up while it was busy as one
+ * batch, so a burst is spread over every solver thread but does not need a
+ * thread handoff per puzzle. A request that would queue more puzzles than the
+ * pool can hold, or
+ * that arrives while as many requests are in progress, is rejected with 429
+ * instead of waiting.
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class SolverService {
+   /**
+    * Creates a solving service (call start() to accept requests)
+    * 
+    * @param engineName  The name of the engine used when a request does not
+    *                    select one (or SolverRegistry.AUTO)
+    * @param threadCount The number of solver threads
+    * @param port        The port to listen on, on the loopback address (0 for
+    *                    any free port)
+    */
+   public SolverService(String engineName, int threadCount, int port) {
+      this.engineName = engineName;
+      this.threadCount = threadCount;
+      this.port = port;
+      this.maxPending = threadCount * PENDING_PER_THREAD;
+      this.pendingPermits = new Semaphore(this.maxPending);
+   }
+
+   /**
+    * Bounds the solve of each puzzle, so one hard puzzle cannot hold a solver
+    * thread for long (puzzles that reach a limit are reported as TIMED_OUT)
+    * 
+    * @param timeLimitMillis The time limit of each solve in milliseconds (0 for
+    *                        no limit)
+    * @param nodeLimit       The number of search nodes each solve can visit (0
+    *                        for no limit)
+    */
+   public void setLimits(long timeLimitMillis, long nodeLimit) {
+      this.timeLimitMillis = timeLimitMillis;
+      this.nodeLimit = nodeLimit;
+   }
+
+   /**
+    * Answers repeated puzzles and their symmetric variants from a solution
+    * cache instead of solving them again
+    * 
+    * @param cache The solution cache (or null to always solve)
+    */
+   public void setCache(SolutionCache cache) {
+      this.cache = cache;
+   }
+
+   /**
+    * Answers puzzles from a result store when their outcomes are known, and
+    * appends the outcomes of new solves to it
+    * 
+    * @param store The result store (or null to always solve)
+    */
+   public void setStore(ResultStore store) {
+      this.store = store;
+   }
+
+   /**
+    * Starts the solver threads and begins accepting requests
+    * 
+    * @throws IOException if the port cannot be opened
+    */
+   public void start() throws IOException {
+      this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), this.port), 0);
+      this.server.createContext(SOLVE_PATH, this::handle);
+      this.requestExecutor = this.createRequestExecutor();
+      this.server.setExecutor(this.requestExecutor);
+      this.solverThreads = new Thread[this.threadCount];
+      for (int i = 0; i < this.threadCount; i++) {
+         this.solverThreads[i] = new Thread(this::runSolver, "solver-" + i);
+         this.solverThreads[i].setDaemon(true);
+         this.solverThreads[i].start();
+      }
+      this.server.start();
+   }
+
+   /**
+    * Stops accepting requests, cancels the solves in progress, and stops the
+    * solver threads
+    */
+   public void stop() {
+      this.server.stop(0);
+      for (Thread thread : this.solverThreads) {
+         thread.interrupt();
+      }
+      this.requestExecutor.shutdownNow();
+      this.cancelQueued(new ArrayList<Job>());
+   }
+
+   /**
+    * Gets the port the service is listening on
+    * 
+    * @return The port (the one picked by the system if 0 was requested)
+    */
+   public int getPort() {
+      return this.server.getAddress().getPort();
+   }
+
+   /** The path of the solving endpoint */
+   public static final String SOLVE_PATH = "/solve";
+
+   /** The number of queued puzzles the service accepts per solver thread */
+   private static final int PENDING_PER_THREAD = 256;
+   /** The largest number of puzzles a solver thread takes as one batch */
+   private static final int MAX_BATCH_SIZE = 64;
+   /** The largest accepted request body in bytes */
+   private static final int MAX_BODY_BYTES = 1 << 20;
+   /** The number of request threads (without virtual threads) beyond one per pending puzzle, for rejecting requests */
+   private static final int SPARE_REQUEST_THREADS = 64;
+   /** The seconds an idle request thread is kept without virtual threads */
+   private static final long REQUEST_THREAD_KEEP_ALIVE = 60;
+   /** The seconds a rejected client is asked to wait before trying again */
+   private static final String RETRY_AFTER_SECONDS = "1";
+   /** The status of a puzzle whose engine failed */
+   private static final String ERROR = "ERROR";
+   /** The query parameter that selects the engine */
+   private static final String ENGINE_PARAMETER = "engine";
+   /** The query parameter that selects the format of the puzzles */
+   private static final String FORMAT_PARAMETER = "format";
+   /** The format in which every line is one puzzle */
+   private static final String LINE_FORMAT = "lines";
+   /** The name of the engine used when a request does not select one */
+   private String engineName;
+   /** The number of solver threads */
+   private int threadCount;
+   /** The port to listen on (0 for any free port) */
+   private int port;
+   /** The largest number of puzzles that can be queued or solving at once */
+   private int maxPending;
+   /** One permit for each puzzle that can still be queued */
+   private Semaphore pendingPermits;
+   /** The number of requests being handled */
+   private AtomicInteger activeRequests = new AtomicInteger();
+   /** The puzzles waiting for a solver thread */
+   private BlockingQueue<Job> queue = new LinkedBlockingQueue<Job>();
+   /** The time limit of each solve in milliseconds (0 for no limit) */
+   private long timeLimitMillis;
+   /** The number of search nodes each solve can visit (0 for no limit) */
+   private long nodeLimit;
+   /** The cache of solutions to check before solving (or null) */
+   private SolutionCache cache;
+   /** The store of finished outcomes to check before solving (or null) */
+   private ResultStore store;
+   /** The HTTP server (null before start()) */
+   private HttpServer server;
+   /** The executor that runs each request on its own thread */
+   private ExecutorService requestExecutor;
+   /** The threads that solve the queued puzzles */
+   private Thread[] solverThreads;
+
+   /**
+    * Creates the executor for requests, which gives each request a virtual
+    * thread when the JVM supports them (found by reflection, so the service
+    * also runs on JVMs without them)
+    * 
+    * @return The request executor
+    */
+   private ExecutorService createRequestExecutor() {
+      try {
+         Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+         return (ExecutorService) method.invoke(null);
+      } catch (ReflectiveOperationException e) {
+         // every admitted request holds a pending permit, so at most maxPending
+         // requests wait for solves, and the spare threads answer the rest with
+         // 429 (only a burst beyond that runs on the server's own thread)
+         int maxThreads = this.maxPending + SPARE_REQUEST_THREADS;
+         return new ThreadPoolExecutor(0, maxThreads, REQUEST_THREAD_KEEP_ALIVE, TimeUnit.SECONDS,
+               new SynchronousQueue<Runnable>(), runnable -> {
+                  Thread thread = new Thread(runnable, "solve-request");
+                  thread.setDaemon(true);
+                  return thread;
+               }, new ThreadPoolExecutor.CallerRunsPolicy());
+      }
+   }
+
+   /**
+    * Handles one request to the solving endpoint
+    * 
+    * @param exchange The request and its response
+    * @throws IOException if the response cannot be sent
+    */
+   private void handle(HttpExchange exchange) throws IOException {
+      try {
+         if (this.activeRequests.incrementAndGet() > this.maxPending) {
+            // reject before reading the body, so a flood is turned away quickly
+            exchange.getResponseHeaders().set("Retry-After", RETRY_AFTER_SECONDS);
+            this.sendText(exchange, 429, "Too many requests are in progress\n");
+            return;
+         }
+         if (!exchange.getRequestMethod().equals("POST")) {
+            exchange.getResponseHeaders().set("Allow", "POST");
+            this.sendText(exchange, 405, "Puzzles must be sent with POST\n");
+            return;
+         }
+         String query = exchange.getRequestURI().getRawQuery();
+         String engine = getParameter(query, ENGINE_PARAMETER, this.engineName);
+         if (!SolverRegistry.isKnown(engine)) {
+            this.sendText(exchange, 400, "Unknown engine: " + engine + "\n");
+            return;
+         }
+         byte[] body = readBody(exchange.getRequestBody());
+         if (body == null) {
+            this.sendText(exchange, 413, "Requests are limited to " + MAX_BODY_BYTES + " bytes\n");
+            return;
+         }
+         List<Board> boards;
+         try {
+            boards = parse(body, getParameter(query, FORMAT_PARAMETER, "").equals(LINE_FORMAT));
+         } catch (IllegalArgumentException e) {
+            this.sendText(exchange, 400, e.getMessage() + "\n");
+            return;
+         }
+         if (boards.size() > this.maxPending) {
+            this.sendText(exchange, 413, "Requests are limited to " + this.maxPending + " puzzles\n");
+            return;
+         }
+         if (!this.pendingPermits.tryAcquire(boards.size())) {
+            exchange.getResponseHeaders().set("Retry-After", RETRY_AFTER_SECONDS);
+            this.sendText(exchange, 429, "Too many puzzles are waiting to be solved\n");
+            return;
+         }
+         this.sendText(exchange, 200, this.solve(boards, engine));
+      } finally {
+         this.activeRequests.decrementAndGet();
+         exchange.close();
+      }
+   }
+
+   /**
+    * Queues the puzzles of a request and waits for their results (the caller
+    * must hold one pending permit for each puzzle)
+    * 
+    * @param boards The puzzles to solve (solved in place)
+    * @param engine The name of the engine (or SolverRegistry.AUTO)
+    * @return The response body, with one line per puzzle
+    */
+   private String solve(List<Board> boards, String engine) {
+      List<Job> jobs = new ArrayList<Job>(boards.size());
+      for (Board board : boards) {
+         Job job = new Job(board, engine);
+         job.control.setTimeLimit(this.timeLimitMillis);
+         job.control.setNodeLimit(this.nodeLimit);
+         jobs.add(job);
+         this.queue.add(job);
+      }
+
+      StringBuilder response = new StringBuilder();
+      for (Job job : jobs) {
+         SolveResult result;
+         try {
+            result = job.result.get();
+         } catch (InterruptedException e) {
+            // the service is stopping, so give up on the rest of the request
+            Thread.currentThread().interrupt();
+            for (Job other : jobs) {
+               other.control.cancel();
+            }
+            result = new SolveResult(SolveStatus.CANCELLED);
+         } catch (ExecutionException e) {
+            // the engine failed, which says nothing about whether the puzzle has a solution
+            System.err.println("Error solving board: " + e.getCause());
+            response.append(ERROR).append('\t').append(job.board.toLine()).append('\t').append(e.getCause())
+                  .append('\n');
+            continue;
+         }
+         Board shown = result.getPartialBoard() != null ? result.getPartialBoard() : job.board;
+         response.append(result.getStatus()).append('\t').append(shown.toLine()).append('\t')
+               .append(result.getMetrics()).append('\n');
+      }
+      return response.toString();
+   }
+
+   /**
+    * Solves queued puzzles until the service stops, taking this thread's share
+    * of the waiting puzzles (up to MAX_BATCH_SIZE) as one batch
+    */
+   private void runSolver() {
+      List<Job> batch = new ArrayList<Job>(MAX_BATCH_SIZE);
+      try {
+         while (true) {
+            batch.add(this.queue.take());
+            // leave the other solver threads their share, so a burst is not solved by one thread
+            int share = Math.max(1, (this.queue.size() + 1) / this.threadCount);
+            this.queue.drainTo(batch, Math.min(share, MAX_BATCH_SIZE) - 1);
+            for (Job job : batch) {
+               try {
+                  job.result.complete(this.solve(job));
+               } catch (RuntimeException e) {
+                  job.result.completeExceptionally(e);
+               } finally {
+                  this.pendingPermits.release();
+               }
+            }
+            batch.clear();
+         }
+      } catch (InterruptedException e) {
+         // the service is stopping, so answer the puzzles no solver thread will take
+         this.cancelQueued(batch);
+      }
+   }
+
+   /**
+    * Cancels a batch and every puzzle still in the queue, so the requests
+    * waiting for them can answer, and gives back their pending permits
+    * 
+    * @param batch The unsolved puzzles taken from the queue (cleared)
+    */
+   private void cancelQueued(List<Job> batch) {
+      this.queue.drainTo(batch);
+      for (Job job : batch) {
+         job.control.cancel();
+         job.result.complete(new SolveResult(SolveStatus.CANCELLED));
+         this.pendingPermits.release();
+      }
+      batch.clear();
+   }
+
+   /**
+    * Solves one queued puzzle with the engine of its request
+    * 
+    * @param job The puzzle to solve
+    * @return The result of the solve
+    */
+   private SolveResult solve(Job job) {
+      if (job.control.isCancelled()) {
+         return new SolveResult(SolveStatus.CANCELLED);
+      }
+      String name = SolverRegistry.resolveName(job.engine, job.board.size);
+      SolverStrategy strategy = SolverRegistry.get(name, job.board.size);
+      if (this.cache != null) {
+         strategy = this.cache.wrap(strategy);
+      }
+      if (this.store != null) {
+         strategy = this.store.wrap(strategy);
+      }
+      return strategy.solve(job.board, job.control);
+   }
+
+   /**
+    * Gets a query parameter of a request
+    * 
+    * @param query        The raw query of the request URI (or null)
+    * @param name         The name of the parameter
+    * @param defaultValue The value if the parameter is missing
+    * @return The decoded value of the parameter
+    */
+   private static String getParameter(String query, String name, String defaultValue) {
+      if (query != null) {
+         for (String parameter : query.split("&")) {
+            if (parameter.startsWith(name + "=")) {
+               return URLDecoder.decode(parameter.substring(name.length() + 1), StandardCharsets.UTF_8);
+            }
+         }
+      }
+      return defaultValue;
+   }
+
+   /**
+    * Reads a request body, up to MAX_BODY_BYTES
+    * 
+    * @param in The request body
+    * @return The bytes of the body, or null if it is too large
+    * @throws IOException if the body cannot be read
+    */
+   private static byte[] readBody(InputStream in) throws IOException {
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      byte[] chunk = new byte[8192];
+      for (int count = in.read(chunk); count != -1; count = in.read(chunk)) {
+         if (body.size() + count > MAX_BODY_BYTES) {
+            return null;
+         }
+         body.write(chunk, 0, count);
+      }
+      return body.toByteArray();
+   }
+
+   /**
+    * Reads the puzzles of a request body, where a run of n lines of n cells
+    * (with blank lines allowed between them, like the bands of a puzzle file)
+    * is one board with one row per line, and any other line is one puzzle
+    * 
+    * @param body         The request body
+    * @param isLineFormat Whether every line is one puzzle (for line puzzles
+    *                     that could be mistaken for rows, like 16 4x4 puzzles)
+    * @return The puzzles, in order
+    * @throws IllegalArgumentException if a puzzle is not a supported board
+    */
+   private static List<Board> parse(byte[] body, boolean isLineFormat) {
+      List<String> lines = new ArrayList<String>();
+      List<Integer> lineNumbers = new ArrayList<Integer>();
+      String[] bodyLines = new String(body, StandardCharsets.UTF_8).split("\n");
+      for (int i = 0; i < bodyLines.length; i++) {
+         if (countCells(bodyLines[i]) > 0) {
+            lines.add(bodyLines[i]);
+            lineNumbers.add(i + 1);
+         }
+      }
+
+      List<Board> boards = new ArrayList<Board>();
+      int runStart = 0;
+      for (int i = 0; i < lines.size();) {
+         int rowCount = isLineFormat ? 0 : countRows(lines, i);
+         if (rowCount > 0) {
+            addLinePuzzles(lines.subList(runStart, i), lineNumbers.subList(runStart, i), boards);
+            boards.add(Board.fromLines(lines.subList(i, i + rowCount)));
+            i += rowCount;
+            runStart = i;
+         } else {
+            i++;
+         }
+      }
+      addLinePuzzles(lines.subList(runStart, lines.size()), lineNumbers.subList(runStart, lines.size()), boards);
+      if (boards.isEmpty()) {
+         throw new IllegalArgumentException("No puzzles found");
+      }
+      return boards;
+   }
+
+   /**
+    * Checks if the lines from an index on are the rows of a board
+    * 
+    * @param lines The non-blank lines of the body
+    * @param first The index of the first line
+    * @return The number of rows of the board, or 0 if the first line is not a
+    *         row of a supported board
+    */
+   private static int countRows(List<String> lines, int first) {
+      int size = countCells(lines.get(first));
+      int boxSize = (int) Math.round(Math.sqrt(size));
+      if (size < 2 || boxSize * boxSize != size || size > PuzzleCorpus.MAX_BOARD_SIZE
+            || first + size > lines.size()) {
+         return 0;
+      }
+      for (int i = first + 1; i < first + size; i++) {
+         if (countCells(lines.get(i)) != size) {
+            return 0;
+         }
+      }
+      return size;
+   }
+
+   /**
+    * Reads lines that each hold one puzzle
+    * 
+    * @param lines       The lines
+    * @param lineNumbers The line number of each line in the body
+    * @param boards      The list to add the puzzles to
+    * @throws IllegalArgumentException if a puzzle is not a supported board
+    */
+   private static void addLinePuzzles(List<String> lines, List<Integer> lineNumbers, List<Board> boards) {
+      if (lines.isEmpty()) {
+         return;
+      }
+      byte[] bytes = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+      try (LinePuzzleReader reader = new LinePuzzleReader(Channels.newChannel(new ByteArrayInputStream(bytes)))) {
+         while (true) {
+            Board board;
+            try {
+               board = reader.next();
+            } catch (IllegalArgumentException e) {
+               int lineNumber = lineNumbers.get((int) reader.getLineNumber() - 1);
+               throw new IllegalArgumentException("Line " + lineNumber + " is not a supported board");
+            }
+            if (board == null) {
+               break;
+            }
+            boards.add(board);
+         }
+      } catch (IOException e) {
+         // reading from memory cannot fail
+         throw new IllegalArgumentException(e);
+      }
+   }
+
+   /**
+    * Counts the cell symbols on a line (the same symbols puzzle files use)
+    * 
+    * @param line The line
+    * @return The number of cell symbols
+    */
+   private static int countCells(String line) {
+      int count = 0;
+      for (int i = 0; i < line.length(); i++) {
+         if (Board.isCellSymbol(line.charAt(i))) {
+            count++;
+         }
+      }
+      return count;
+   }
+
+   /**
+    * Sends a plain text response
+    * 
+    * @param exchange The request and its response
+    * @param status   The HTTP status code
+    * @param text     The response body
+    * @throws IOException if the response cannot be sent
+    */
+   private void sendText(HttpExchange exchange, int status, String text) throws IOException {
+      byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+      exchange.sendResponseHeaders(status, bytes.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+         out.write(bytes);
+      }
+   }
+
+   /**
+    * A puzzle waiting to be solved for a request
+    */
+   private static class Job {
+      /**
+       * Creates a job
+       * 
+       * @param board  The puzzle to solve (solved in place)
+       * @param engine The name of the engine (or SolverRegistry.AUTO)
+       */
+      public Job(Board board, String engine) {
+         this.board = board;
+         this.engine = engine;
+      }
+
+      /** The puzzle to solve */
+      private Board board;
+      /** The name of the engine (or SolverRegistry.AUTO) */
+      private String engine;
+      /** The control that bounds the solve */
+      private SolveControl control = new SolveControl();
+      /** The result of the solve, completed by a solver thread */
+      private CompletableFuture<SolveResult> result = new CompletableFuture<SolveResult>();
+   }
+}
@@ -0,0 +1,203 @@
+
+/**
+ * Adds up the metrics of every solve run by one engine, so long-running
+ * processes can follow the engine's work through JMX (the totals are striped
+ * counters, so solves on many threads can record without contending)
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class SolverStats implements SolverStatsMBean {
+   /**
+    * Creates empty totals for an engine
+    * 
+    * @param engineName The name of the engine
+    */
+   public SolverStats(String engineName) {
+      this.engineName = engineName;
+   }
+
+   /**
+    * Adds a finished solve to the totals
+    * 
+    * @param result The result of the solve
+    */
+   public void record(SolveResult result) {
+      SolveMetrics metrics = result.getMetrics();
+      this.solveCount.increment();
+      switch (result.getStatus()) {
+         case SOLVED:
+            this.solvedCount.increment();
+            break;
+         case NO_SOLUTION:
+            this.noSolutionCount.increment();
+            break;
+         case TIMED_OUT:
+            this.timedOutCount.increment();
+            break;
+         default:
+            this.cancelledCount.increment();
+            break;
+      }
+      this.boardsVisited.add(metrics.getBoardsVisited());
+      this.backtracks.add(metrics.getBacktracks());
+      this.propagations.add(metrics.getPropagations());
+      this.maxPeakDepth.accumulate(metrics.getPeakDepth());
+      this.maxPeakFrontier.accumulate(metrics.getPeakFrontier());
+      this.allocatedBytes.add(metrics.getAllocatedBytes());
+      this.setupNanos.add(metrics.getSetupNanos());
+      this.searchNanos.add(metrics.getSearchNanos());
+      this.totalNanos.add(metrics.getTotalNanos());
+      this.maxTotalNanos.accumulate(metrics.getTotalNanos());
+   }
+
+   /**
+    * Gets the name of the engine
+    * 
+    * @return The engine name
+    */
+   public String getEngineName() {
+      return this.engineName;
+   }
+
+   @Override
+   public long getSolveCount() {
+      return this.solveCount.sum();
+   }
+
+   @Override
+   public long getSolvedCount() {
+      return this.solvedCount.sum();
+   }
+
+   @Override
+   public long getNoSolutionCount() {
+      return this.noSolutionCount.sum();
+   }
+
+   @Override
+   public long getCancelledCount() {
+      return this.cancelledCount.sum();
+   }
+
+   @Override
+   public long getTimedOutCount() {
+      return this.timedOutCount.sum();
+   }
+
+   @Override
+   public long getBoardsVisited() {
+      return this.boardsVisited.sum();
+   }
+
+   @Override
+   public long getBacktracks() {
+      return this.backtracks.sum();
+   }
+
+   @Override
+   public long getPropagations() {
+      return this.propagations.sum();
+   }
+
+   @Override
+   public long getMaxPeakDepth() {
+      return this.maxPeakDepth.get();
+   }
+
+   @Override
+   public long getMaxPeakFrontier() {
+      return this.maxPeakFrontier.get();
+   }
+
+   @Override
+   public long getAllocatedBytes() {
+      return this.allocatedBytes.sum();
+   }
+
+   @Override
+   public double getSetupMillis() {
+      return this.setupNanos.sum() / 1e6;
+   }
+
+   @Override
+   public double getSearchMillis() {
+      return this.searchNanos.sum() / 1e6;
+   }
+
+   @Override
+   public double getAverageSolveMillis() {
+      long count = this.solveCount.sum();
+      return count == 0 ? 0 : this.totalNanos.sum() / 1e6 / count;
+   }
+
+   @Override
+   public double getMaxSolveMillis() {
+      return this.maxTotalNanos.get() / 1e6;
+   }
+
+   @Override
+   public void reset() {
+      this.solveCount.reset();
+      this.solvedCount.reset();
+      this.noSolutionCount.reset();
+      this.cancelledCount.reset();
+      this.timedOutCount.reset();
+      this.boardsVisited.reset();
+      this.backtracks.reset();
+      this.propagations.reset();
+      this.maxPeakDepth.reset();
+      this.maxPeakFrontier.reset();
+      this.allocatedBytes.reset();
+      this.setupNanos.reset();
+      this.searchNanos.reset();
+      this.totalNanos.reset();
+      this.maxTotalNanos.reset();
+   }
+
+   @Override
+   public String toString() {
+      return String.format("%s: %d solves (%d solved, %d no solution, %d cancelled, %d timed out), "
+            + "%,d boards visited, avg %.3f ms, max %.3f ms", this.engineName, this.getSolveCount(),
+            this.getSolvedCount(), this.getNoSolutionCount(), this.getCancelledCount(), this.getTimedOutCount(),
+            this.getBoardsVisited(),
+            this.getAverageSolveMillis(), this.getMaxSolveMillis());
+   }
+
+   /** The name of the engine */
+   private String engineName;
+   /** The number of solves run */
+   private LongAdder solveCount = new LongAdder();
+   /** The number of solves that found a solution */
+   private LongAdder solvedCount = new LongAdder();
+   /** The number of solves that found no solution */
+   private LongAdder noSolutionCount = new LongAdder();
+   /** The number of solves that were stopped before finishing */
+   private LongAdder cancelledCount = new LongAdder();
+   /** The number of solves that reached a limit before finishing */
+   private LongAdder timedOutCount = new LongAdder();
+   /** The number of search nodes visited */
+   private LongAdder boardsVisited = new LongAdder();
+   /** The number of guesses undone */
+   private LongAdder backtracks = new LongAdder();
+   /** The number of constraint propagation rounds run */
+   private LongAdder propagations = new LongAdder();
+   /** The deepest search path of any solve */
+   private LongAccumulator maxPeakDepth = new LongAccumulator(Math::max, 0);
+   /** The largest frontier of any solve */
+   private LongAccumulator maxPeakFrontier = new LongAccumulator(Math::max, 0);
+   /** The estimated number of bytes allocated */
+   private LongAdder allocatedBytes = new LongAdder();
+   /** The time spent setting up searches in nanoseconds */
+   private LongAdder setupNanos = new LongAdder();
+   /** The time spent searching in nanoseconds */
+   private LongAdder searchNanos = new LongAdder();
+   /** The total time of every solve in nanoseconds */
+   private LongAdder totalNanos = new LongAdder();
+   /** The time of the slowest solve in nanoseconds */
+   private LongAccumulator maxTotalNanos = new LongAccumulator(Math::max, 0);
+}
@@ -0,0 +1,119 @@
+
+/**
+ * The totals of one solving engine that are published through JMX
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+public interface SolverStatsMBean {
+   /**
+    * Gets the number of solves run
+    * 
+    * @return The number of solves
+    */
+   long getSolveCount();
+
+   /**
+    * Gets the number of solves that found a solution
+    * 
+    * @return The number of solved boards
+    */
+   long getSolvedCount();
+
+   /**
+    * Gets the number of solves that found no solution
+    * 
+    * @return The number of unsolvable boards
+    */
+   long getNoSolutionCount();
+
+   /**
+    * Gets the number of solves that were stopped before finishing
+    * 
+    * @return The number of cancelled solves
+    */
+   long getCancelledCount();
+
+   /**
+    * Gets the number of solves that reached their time limit or node limit
+    * 
+    * @return The number of timed out solves
+    */
+   long getTimedOutCount();
+
+   /**
+    * Gets the number of search nodes visited by every solve
+    * 
+    * @return The number of boards visited
+    */
+   long getBoardsVisited();
+
+   /**
+    * Gets the number of guesses undone by every solve
+    * 
+    * @return The number of backtracks
+    */
+   long getBacktracks();
+
+   /**
+    * Gets the number of constraint propagation rounds run by every solve
+    * 
+    * @return The number of propagation rounds
+    */
+   long getPropagations();
+
+   /**
+    * Gets the deepest search path of any solve
+    * 
+    * @return The largest number of guesses on one search path
+    */
+   long getMaxPeakDepth();
+
+   /**
+    * Gets the largest frontier of any solve
+    * 
+    * @return The largest number of branches waiting to be explored at once
+    */
+   long getMaxPeakFrontier();
+
+   /**
+    * Gets the estimated memory allocated by every solve
+    * 
+    * @return The number of bytes allocated
+    */
+   long getAllocatedBytes();
+
+   /**
+    * Gets the time every solve spent setting up its search
+    * 
+    * @return The setup time in milliseconds
+    */
+   double getSetupMillis();
+
+   /**
+    * Gets the time every solve spent searching
+    * 
+    * @return The search time in milliseconds
+    */
+   double getSearchMillis();
+
+   /**
+    * Gets the average time of a solve
+    * 
+    * @return The average solve time in milliseconds (0 if there were no solves)
+    */
+   double getAverageSolveMillis();
+
+   /**
+    * Gets the time of the slowest solve
+    * 
+    * @return The longest solve time in milliseconds
+    */
+   double getMaxSolveMillis();
+
+   /**
+    * Clears every total
+    */
+   void reset();
+}
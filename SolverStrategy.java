@@ -0,0 +1,30 @@
+
+/**
+ * A Sudoku solving engine
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+public interface SolverStrategy {
+   /**
+    * Solves a board in place
+    * 
+    * @param board   The board to solve
+    * @param control The control that can stop the solve and follow its progress
+    * @return The result of the solve (when the board was not solved, it is
+    *         left unchanged)
+    */
+   SolveResult solve(Board board, SolveControl control);
+
+   /**
+    * Solves a board in place, without a way to stop the solve
+    * 
+    * @param board The board to solve
+    * @return The result of the solve (when the board was not solved, it is
+    *         left unchanged)
+    */
+   default SolveResult solve(Board board) {
+      return this.solve(board, new SolveControl());
+   }
+}
@@ -10,16 +10,22 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.GridBagLayout;
 import java.awt.GridLayout;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
+import javax.swing.JComboBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
 import javax.swing.SwingConstants;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 
 public class SudokuGui {
    /**
@@ -28,16 +34,48 @@ public class SudokuGui {
     * @param board The initial Sudoku board
     */
    public SudokuGui(Board board) {
+      this(board, SolverRegistry.AUTO);
+   }
+
+   /**
+    * Instantiates a Sudoku Solver GUI that starts with a specific solving engine
+    * selected
+    * 
+    * @param board      The initial Sudoku board
+    * @param engineName The name of the selected solving engine (or
+    *                   SolverRegistry.AUTO)
+    */
+   public SudokuGui(Board board, String engineName) {
       this.board = board;
+      this.engineName = engineName;
       this.textFields = new JTextField[board.size * board.size];
       this.labels = new JLabel[board.size * board.size];
    }
 
+   /**
+    * Answers puzzles from a result store when their outcomes are known, and
+    * appends the outcomes of new solves to it
+    * 
+    * @param store The result store (or null to always solve)
+    */
+   public void setStore(ResultStore store) {
+      this.store = store;
+   }
+
    /**
     * Creates and displays the Sudoku Solver GUI
     */
    public void showGui() {
       JFrame frame = createMainFrame();
+      frame.addWindowListener(new WindowAdapter() {
+         @Override
+         public void windowClosed(WindowEvent e) {
+            // stop a running solve along with its window
+            if (solveControl != null) {
+               solveControl.cancel();
+            }
+         }
+      });
 
       JPanel puzzlePanel = createCenteredPanel(createBoardPanel(false));
       frame.add(puzzlePanel);
@@ -56,8 +94,12 @@ public class SudokuGui {
    private static final int WINDOW_WIDTH = 900;
    /** The height of the GUI window */
    private static final int WINDOW_HEIGHT = 300;
-   /** The maximum board size that can be solved */
-   private static final int MAX_SOLVE_SIZE = 9;
+   /** The number of milliseconds between progress updates while solving */
+   private static final int PROGRESS_DELAY = 100;
+   /** The name of the selected solving engine */
+   private String engineName;
+   /** The store of finished outcomes to check before solving (or null) */
+   private ResultStore store;
    /** A representation of the input Sudoku board */
    private Board board;
    /** A representation of the solution Sudoku board */
@@ -66,6 +108,12 @@ public class SudokuGui {
    private JTextField[] textFields;
    /** The labels that collectively form the solution Sudoku board */
    private JLabel[] labels;
+   /** The button that starts a solve, or cancels the running one */
+   private JButton solveButton;
+   /** The label that shows the progress and outcome of the last solve */
+   private JLabel statusLabel;
+   /** The control of the running solve (null when no solve is running) */
+   private SolveControl solveControl;
 
    /**
     * Updates the representation of the input Sudoku board with the actual values
@@ -116,7 +164,7 @@ public class SudokuGui {
                      % this.solutionBoard.size
                      + (boardIndex % this.solutionBoard.boxSize);
                labels[boardIndex].setText(String
-                     .valueOf(this.solutionBoard.cells.get(smallRow).get(smallCol)));
+                     .valueOf(this.solutionBoard.getCell(smallRow, smallCol)));
             }
          }
       }
@@ -144,11 +192,14 @@ public class SudokuGui {
    private JPanel createButtonPanel() {
       JPanel mainButtonPanel = new JPanel(new GridLayout(1, 2, 20, 20));
 
-      JPanel leftButtonPanel = new JPanel(new GridLayout(4, 1, 20, 20));
-      JButton solveDFSButton = createButton("Solve (DFS)");
-      solveDFSButton.addActionListener(e -> {
-         if (board.size > MAX_SOLVE_SIZE) {
-            JOptionPane.showMessageDialog(null, "Board too large to solve :(");
+      JPanel leftButtonPanel = new JPanel(new GridLayout(5, 1, 20, 20));
+      solveButton = createButton("Solve");
+      solveButton.addActionListener(e -> {
+         if (solveControl != null) {
+            solveControl.cancel();
+         } else if (board.size > SolverRegistry.getMaxBoardSize(SolverRegistry.resolveName(engineName, board.size))) {
+            JOptionPane.showMessageDialog(null, "Board too large to solve with "
+                  + SolverRegistry.resolveName(engineName, board.size) + " :(");
          } else {
             showSolution();
          }
@@ -165,9 +216,13 @@ public class SudokuGui {
          }
          updateBoardData();
       });
-      leftButtonPanel.add(solveDFSButton);
+      JComboBox<String> engineSelector = createEngineSelector();
+      leftButtonPanel.add(solveButton);
+      leftButtonPanel.add(engineSelector);
       leftButtonPanel.add(checkButton);
       leftButtonPanel.add(clearButton);
+      statusLabel = new JLabel("", SwingConstants.CENTER);
+      leftButtonPanel.add(statusLabel);
       mainButtonPanel.add(leftButtonPanel);
 
       JPanel rightButtonPanel = new JPanel(new GridLayout(4, 1, 20, 20));
@@ -194,12 +249,31 @@ public class SudokuGui {
       JButton button = createButton("New " + boardSize + "x" + boardSize);
       button.addActionListener(e -> {
          Board newBoard = Board.random(boardSize);
-         SudokuGui newSudokuGui = new SudokuGui(newBoard);
+         SudokuGui newSudokuGui = new SudokuGui(newBoard, engineName);
          newSudokuGui.showGui();
       });
       return button;
    }
 
+   /**
+    * Creates a drop-down list for choosing the solving engine
+    * 
+    * @return The created JComboBox
+    */
+   private JComboBox<String> createEngineSelector() {
+      JComboBox<String> engineSelector = new JComboBox<String>();
+      engineSelector.addItem(SolverRegistry.AUTO);
+      for (String name : SolverRegistry.getNames()) {
+         engineSelector.addItem(name);
+      }
+      engineSelector.setSelectedItem(this.engineName);
+      engineSelector.setFocusable(false);
+      engineSelector.addActionListener(e -> {
+         engineName = (String) engineSelector.getSelectedItem();
+      });
+      return engineSelector;
+   }
+
    /**
     * Creates a new unfocused button
     * 
@@ -243,7 +317,7 @@ public class SudokuGui {
                   int smallCol = (int) (Math.floor(boardIndex / this.board.size) * this.board.boxSize) % this.board.size
                         + (boardIndex % this.board.boxSize);
                   textField.setText(String
-                        .valueOf(this.board.cells.get(smallRow).get(smallCol)));
+                        .valueOf(this.board.getCell(smallRow, smallCol)));
                   textField.setBorder(BorderFactory.createLineBorder(Color.BLACK));
                   textFields[boardIndex] = textField;
                   boxPanel.add(textField);
@@ -277,24 +351,69 @@ public class SudokuGui {
    }
 
    /**
-    * Shows the input board's solution in the GUI and the console, if a
-    * solution exists
+    * Solves the input board on a background thread, showing the search's
+    * progress until it finishes or is cancelled, then shows the solution in the
+    * GUI and the console, if a solution exists
     */
    private void showSolution() {
       updateBoardData();
+      String name = SolverRegistry.resolveName(engineName, board.size);
       System.out.println("----------------------");
-      System.out.println("SOLVING WITH DFS");
+      System.out.println("SOLVING WITH " + name.toUpperCase());
       System.out.println("----------------------");
-      solutionBoard = board.solveDFS();
-      if (solutionBoard.equals(board)) {
-         System.err.println("Board already solved or error solving board");
-      } else {
-         System.out.println("Input:");
-         board.print();
-         System.out.println();
-         System.out.println("Solution:");
-         solutionBoard.print();
-         updateLabels();
-      }
+      Board input = new Board(board);
+      Board solution = new Board(board);
+      SolverStrategy engine = SolverRegistry.get(name, board.size);
+      SolverStrategy strategy = store != null ? store.wrap(engine) : engine;
+      SolveControl control = new SolveControl();
+      long startTime = System.nanoTime();
+
+      Timer progressTimer = new Timer(PROGRESS_DELAY, e -> {
+         statusLabel.setText(String.format("%,d nodes, %.1f s", control.getNodesVisited(),
+               (System.nanoTime() - startTime) / 1e9));
+      });
+      SwingWorker<SolveResult, Void> worker = new SwingWorker<SolveResult, Void>() {
+         @Override
+         protected SolveResult doInBackground() {
+            return strategy.solve(solution, control);
+         }
+
+         @Override
+         protected void done() {
+            // runs on the Event Dispatch Thread once the solve has stopped
+            progressTimer.stop();
+            solveControl = null;
+            solveButton.setText("Solve");
+            double elapsed = (System.nanoTime() - startTime) / 1e6;
+            SolveResult result;
+            try {
+               result = this.get();
+            } catch (InterruptedException | ExecutionException e) {
+               System.err.println("Error solving board: " + e.getMessage());
+               statusLabel.setText("Error");
+               return;
+            }
+            System.out.printf("Solve time: %.3f ms%n", elapsed);
+            System.out.println(result.getMetrics());
+            statusLabel.setText(String.format("%s, %.1f ms", result.getStatus(), elapsed));
+            if (!result.isSolved()) {
+               System.err.println("Error solving board: " + result.getStatus());
+            } else {
+               System.out.println("Input:");
+               input.print();
+               System.out.println();
+               System.out.println("Solution:");
+               solution.print();
+               solutionBoard = solution;
+               updateLabels();
+            }
+         }
+      };
+
+      solveControl = control;
+      solveButton.setText("Cancel");
+      statusLabel.setText("Solving...");
+      progressTimer.start();
+      worker.execute();
    }
-}
\ No newline at end of file
+}
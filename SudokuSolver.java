@@ -16,13 +16,190 @@
  * @version 2023/01/3
  */
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 public class SudokuSolver {
    public static void main(String args[]) {
+      String engineName = SolverRegistry.AUTO;
+      int threadCount = Runtime.getRuntime().availableProcessors();
+      boolean isLineFormat = false;
+      long timeLimitMillis = 0;
+      long nodeLimit = 0;
+      int cacheCapacity = 0;
+      String storePath = null;
+      int servePort = -1;
+      List<String> paths = new ArrayList<String>();
+      try {
+         for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith(ENGINE_FLAG + "=")) {
+               engineName = args[i].substring(ENGINE_FLAG.length() + 1);
+            } else if (args[i].equals(ENGINE_FLAG) && i + 1 < args.length) {
+               i++;
+               engineName = args[i];
+            } else if (args[i].startsWith(THREADS_FLAG + "=")) {
+               threadCount = Integer.parseInt(args[i].substring(THREADS_FLAG.length() + 1));
+            } else if (args[i].equals(THREADS_FLAG) && i + 1 < args.length) {
+               i++;
+               threadCount = Integer.parseInt(args[i]);
+            } else if (args[i].startsWith(TIMEOUT_FLAG + "=")) {
+               timeLimitMillis = Long.parseLong(args[i].substring(TIMEOUT_FLAG.length() + 1));
+            } else if (args[i].equals(TIMEOUT_FLAG) && i + 1 < args.length) {
+               i++;
+               timeLimitMillis = Long.parseLong(args[i]);
+            } else if (args[i].startsWith(MAX_NODES_FLAG + "=")) {
+               nodeLimit = Long.parseLong(args[i].substring(MAX_NODES_FLAG.length() + 1));
+            } else if (args[i].equals(MAX_NODES_FLAG) && i + 1 < args.length) {
+               i++;
+               nodeLimit = Long.parseLong(args[i]);
+            } else if (args[i].startsWith(CACHE_FLAG + "=")) {
+               cacheCapacity = Integer.parseInt(args[i].substring(CACHE_FLAG.length() + 1));
+            } else if (args[i].equals(CACHE_FLAG) && i + 1 < args.length) {
+               i++;
+               cacheCapacity = Integer.parseInt(args[i]);
+            } else if (args[i].startsWith(STORE_FLAG + "=")) {
+               storePath = args[i].substring(STORE_FLAG.length() + 1);
+            } else if (args[i].equals(STORE_FLAG) && i + 1 < args.length) {
+               i++;
+               storePath = args[i];
+            } else if (args[i].startsWith(SERVE_FLAG + "=")) {
+               servePort = Integer.parseInt(args[i].substring(SERVE_FLAG.length() + 1));
+            } else if (args[i].equals(SERVE_FLAG) && i + 1 < args.length) {
+               i++;
+               servePort = Integer.parseInt(args[i]);
+            } else if (args[i].equals(LINES_FLAG)) {
+               isLineFormat = true;
+            } else if (args[i].startsWith("-") && !args[i].equals("-")) {
+               System.err.println("Unknown argument: " + args[i]);
+               printUsage();
+               return;
+            } else {
+               paths.add(args[i]);
+            }
+         }
+      } catch (NumberFormatException e) {
+         System.err.println("Invalid number: " + e.getMessage());
+         printUsage();
+         return;
+      }
+      if (!SolverRegistry.isKnown(engineName)) {
+         System.err.println("Unknown engine: " + engineName);
+         printUsage();
+         return;
+      }
+      if (threadCount < 1) {
+         System.err.println("Invalid thread count: " + threadCount);
+         printUsage();
+         return;
+      }
+      if (timeLimitMillis < 0 || nodeLimit < 0 || cacheCapacity < 0) {
+         System.err.println("Limits cannot be negative");
+         printUsage();
+         return;
+      }
+
+      if (servePort < -1 || servePort > MAX_PORT) {
+         System.err.println("Invalid port: " + servePort);
+         printUsage();
+         return;
+      }
+
+      ResultStore store = null;
+      if (storePath != null) {
+         try {
+            store = new ResultStore(new File(storePath));
+         } catch (IOException e) {
+            System.err.println("Error opening result store: " + e.getMessage());
+            return;
+         }
+      }
+
+      SolverRegistry.registerMBeans();
+      if (servePort >= 0) {
+         // answer puzzles from other processes until the JVM is stopped
+         SolverService service = new SolverService(engineName, threadCount, servePort);
+         service.setLimits(timeLimitMillis, nodeLimit);
+         if (cacheCapacity > 0) {
+            SolutionCache cache = new SolutionCache(cacheCapacity);
+            cache.registerMBean("service");
+            service.setCache(cache);
+         }
+         service.setStore(store);
+         try {
+            service.start();
+         } catch (IOException e) {
+            System.err.println("Error starting solving service: " + e.getMessage());
+            System.exit(1);
+         }
+         System.out.println("Solving puzzles at http://localhost:" + service.getPort() + SolverService.SOLVE_PATH);
+         return;
+      }
+      if (!paths.isEmpty()) {
+         // solve the listed puzzles without opening a window
+         BatchSolver batchSolver = new BatchSolver(engineName, threadCount, System.out);
+         batchSolver.setLimits(timeLimitMillis, nodeLimit);
+         if (cacheCapacity > 0) {
+            SolutionCache cache = new SolutionCache(cacheCapacity);
+            cache.registerMBean("batch");
+            batchSolver.setCache(cache);
+         }
+         batchSolver.setStore(store);
+         int failures = isLineFormat ? batchSolver.runLines(paths) : batchSolver.run(paths);
+         if (store != null) {
+            try {
+               store.close();
+            } catch (IOException e) {
+               System.err.println("Error closing result store: " + e.getMessage());
+            }
+         }
+         System.exit(failures == 0 ? 0 : 1);
+      }
+
       Board board = Board.random(INITIAL_BOARD_SIZE);
-      SudokuGui sudokuGui = new SudokuGui(board);
+      SudokuGui sudokuGui = new SudokuGui(board, engineName);
+      sudokuGui.setStore(store);
       sudokuGui.showGui();
    }
 
+   /**
+    * Outputs the command line options to the console
+    */
+   private static void printUsage() {
+      System.err.println("Usage: java SudokuSolver [" + ENGINE_FLAG + " <engine>] ["
+            + THREADS_FLAG + " <count>] [" + TIMEOUT_FLAG + " <ms>] [" + MAX_NODES_FLAG + " <count>] ["
+            + CACHE_FLAG + " <entries>] [" + STORE_FLAG + " <file>] [" + SERVE_FLAG
+            + " <port>] [" + LINES_FLAG + "] [puzzle files or directories...]");
+      System.err.println("Engines: " + SolverRegistry.AUTO + ", " + String.join(", ", SolverRegistry.getNames()));
+      System.err.println(LINES_FLAG + " reads files with one puzzle per line (like 81 characters for 9x9),");
+      System.err.println("or the console input when the file is -");
+      System.err.println(TIMEOUT_FLAG + " and " + MAX_NODES_FLAG + " stop each solve at a time or search node limit");
+      System.err.println(CACHE_FLAG + " answers repeated and symmetric puzzles from a cache of that many solutions");
+      System.err.println(STORE_FLAG + " skips puzzles whose outcomes are in the file and appends new ones to it");
+      System.err.println(SERVE_FLAG + " solves puzzles POSTed to http://localhost:<port>" + SolverService.SOLVE_PATH
+            + " (0 picks a free port)");
+      System.err.println("Without puzzle files or directories, the GUI is opened");
+   }
+
    /** The size of the Sudoku board on the starting window */
    private static final int INITIAL_BOARD_SIZE = 9;
+   /** The command line flag that selects the solving engine */
+   private static final String ENGINE_FLAG = "--engine";
+   /** The command line flag that sets the number of batch worker threads */
+   private static final String THREADS_FLAG = "--threads";
+   /** The command line flag that sets the time limit of each solve in milliseconds */
+   private static final String TIMEOUT_FLAG = "--timeout";
+   /** The command line flag that sets the search node limit of each solve */
+   private static final String MAX_NODES_FLAG = "--max-nodes";
+   /** The command line flag that sets the number of solutions to cache */
+   private static final String CACHE_FLAG = "--cache";
+   /** The command line flag that sets the file of finished outcomes */
+   private static final String STORE_FLAG = "--store";
+   /** The largest TCP port number */
+   private static final int MAX_PORT = 65535;
+   /** The command line flag that starts the HTTP solving service on a port */
+   private static final String SERVE_FLAG = "--serve";
+   /** The command line flag that reads puzzle files with one puzzle per line */
+   private static final String LINES_FLAG = "--lines";
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package sudoku;
+
+/**
+ * Loads the bundled puzzle corpus for the benchmarks
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BenchmarkCorpus {
+   /**
+    * Gets the puzzle files of a board size
+    * 
+    * @param boardSize The size of the board's rows and columns
+    * @return The puzzle files in name order
+    */
+   public static List<File> files(int boardSize) {
+      List<String> paths = new ArrayList<String>();
+      paths.add("puzzles/" + boardSize + "x" + boardSize);
+      List<File> files = BatchSolver.collectFiles(paths);
+      if (files.isEmpty()) {
+         throw new IllegalStateException("No puzzles found for size " + boardSize
+               + " (run the benchmarks from the repository root)");
+      }
+      return files;
+   }
+
+   /**
+    * Loads every puzzle of a board size
+    * 
+    * @param boardSize The size of the board's rows and columns
+    * @return The puzzles in file name order
+    */
+   public static List<Board> boards(int boardSize) {
+      List<Board> boards = new ArrayList<Board>();
+      try {
+         for (File file : files(boardSize)) {
+            boards.add(Board.fromFile(file));
+         }
+      } catch (FileNotFoundException e) {
+         throw new UncheckedIOException(e);
+      }
+      return boards;
+   }
+}
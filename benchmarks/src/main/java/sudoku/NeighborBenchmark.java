@@ -0,0 +1,53 @@
+package sudoku;
+
+/**
+ * Benchmarks generating the neighbor boards used by the queue-based solver
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NeighborBenchmark {
+   /** The size of the board's rows and columns */
+   @Param({ "4", "9", "16", "25" })
+   public int size;
+   /** Every puzzle of the board size */
+   private List<Board> puzzles;
+
+   @Setup
+   public void setup() {
+      this.puzzles = BenchmarkCorpus.boards(this.size);
+   }
+
+   /**
+    * Generates the neighbors of every puzzle of the board size
+    */
+   @Benchmark
+   public void getNeighbors(Blackhole blackhole) {
+      for (Board puzzle : this.puzzles) {
+         blackhole.consume(puzzle.getNeighbors());
+      }
+   }
+}
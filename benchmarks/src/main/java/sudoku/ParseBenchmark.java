@@ -0,0 +1,69 @@
+package sudoku;
+
+/**
+ * Benchmarks reading puzzle files into boards
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+   /** The size of the board's rows and columns */
+   @Param({ "4", "9", "16", "25" })
+   public int size;
+   /** The puzzle files of the board size */
+   private List<File> files;
+   /** The first puzzle file of the board size */
+   private File file;
+   /** The index of the next file read by eachFile() */
+   private int nextFile;
+
+   @Setup
+   public void setup() {
+      this.files = BenchmarkCorpus.files(this.size);
+      this.file = this.files.get(0);
+   }
+
+   /**
+    * Reads the puzzle files of the board size in turn, so every file is parsed
+    * (Board.random serves boards from the in-memory catalog, so it does not
+    * measure parsing)
+    */
+   @Benchmark
+   public Board eachFile() throws FileNotFoundException {
+      File next = this.files.get(this.nextFile);
+      this.nextFile = (this.nextFile + 1) % this.files.size();
+      return Board.fromFile(next);
+   }
+
+   /**
+    * Reads the same puzzle file every time
+    */
+   @Benchmark
+   public Board fromFile() throws FileNotFoundException {
+      return Board.fromFile(this.file);
+   }
+}
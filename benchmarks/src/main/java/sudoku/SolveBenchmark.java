@@ -0,0 +1,71 @@
+package sudoku;
+
+/**
+ * Benchmarks full solves of the bundled puzzles, grouped by board size
+ * 
+ * Each invocation solves every puzzle of the board size once. Other engines
+ * can be selected with -p engine=name, but the queue-based and backtracking
+ * engines do not finish the 25x25 puzzle in reasonable time.
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+   /** The size of the board's rows and columns */
+   @Param({ "4", "9", "16", "25" })
+   public int size;
+   /** The name of the solving engine */
+   @Param({ SolverRegistry.AUTO, SolverRegistry.PROPAGATION })
+   public String engine;
+   /** Every puzzle of the board size */
+   private List<Board> puzzles;
+   /** The solving engine */
+   private SolverStrategy strategy;
+
+   @Setup
+   public void setup() {
+      this.puzzles = BenchmarkCorpus.boards(this.size);
+      this.strategy = SolverRegistry.get(this.engine, this.size);
+      if (this.strategy == null) {
+         throw new IllegalArgumentException("Unknown engine: " + this.engine);
+      }
+   }
+
+   /**
+    * Solves a copy of every puzzle of the board size
+    * 
+    * @return The number of puzzles solved
+    */
+   @Benchmark
+   public int solveAll() {
+      int solved = 0;
+      for (Board puzzle : this.puzzles) {
+         if (this.strategy.solve(new Board(puzzle)).isSolved()) {
+            solved++;
+         }
+      }
+      return solved;
+   }
+}
@@ -0,0 +1,29 @@
+package sudoku;
+
+/**
+ * Runs the JMH benchmarks with allocation profiling turned on
+ * 
+ * Run from the repository root so the puzzles/ directory can be found:
+ * java -jar benchmarks/target/benchmarks.jar [JMH options]
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class SudokuBenchmarks {
+   public static void main(String args[]) throws CommandLineOptionException, RunnerException {
+      Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .addProfiler(GCProfiler.class)
+            .build();
+      new Runner(options).run();
+   }
+}
@@ -0,0 +1,77 @@
+package sudoku;
+
+/**
+ * Benchmarks the board validity checks
+ * 
+ * @author Vance Spears
+ * @version 2023/01/3
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+   /** The size of the board's rows and columns */
+   @Param({ "4", "9", "16", "25" })
+   public int size;
+   /** The first puzzle of the board size */
+   private Board puzzle;
+   /** The solution of the first puzzle */
+   private Board solution;
+
+   @Setup
+   public void setup() {
+      this.puzzle = BenchmarkCorpus.boards(this.size).get(0);
+      this.solution = new Board(this.puzzle);
+      SolverRegistry.get(SolverRegistry.AUTO, this.size).solve(this.solution);
+   }
+
+   /**
+    * Checks a solved board, which has to look at every row, column, and box
+    */
+   @Benchmark
+   public boolean isValidSolved() {
+      return this.solution.isValid();
+   }
+
+   /**
+    * Checks an unsolved puzzle
+    */
+   @Benchmark
+   public boolean isValidPuzzle() {
+      return this.puzzle.isValid();
+   }
+
+   /**
+    * Checks the move in every cell of a solved board
+    */
+   @Benchmark
+   public int isValidMove() {
+      int validMoves = 0;
+      for (int r = 0; r < this.size; r++) {
+         for (int c = 0; c < this.size; c++) {
+            if (this.solution.isValidMove(r, c)) {
+               validMoves++;
+            }
+         }
+      }
+      return validMoves;
+   }
+}